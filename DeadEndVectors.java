@@ -0,0 +1,54 @@
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// to sweep the rows of a DeadEndFiller a vector of words at a time with the
+// incubating Vector API. It is kept out of MazeGame.java so that file still
+// builds on its own; where this one is built and the module added,
+//   javac --add-modules jdk.incubator.vector DeadEndVectors.java MazeGame.java
+//   java --add-modules jdk.incubator.vector ...
+// DeadEndFiller.VECTORS picks it up, and everywhere else the filler keeps
+// its scalar sweep
+class DeadEndVectors implements DeadEndKernel {
+  static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+  // the inner words of row y a vector at a time, the same sums as
+  // DeadEndFiller.deadEnds; the first and last words, which hold the start,
+  // the target and the cells past the width, are left to the scalar words
+  public void sweepRow(DeadEndFiller filler, int y) {
+    int words = filler.wordsPerRow;
+    int row = y * words;
+    int above = row - words;
+    int below = row + words;
+    long[] filled = filler.filled;
+    LongVector none = LongVector.zero(SPECIES);
+    int i = 1;
+    for (; i + SPECIES.length() < words; i += SPECIES.length()) {
+      LongVector f = LongVector.fromArray(SPECIES, filled, row + i);
+      LongVector fRight = f.lanewise(VectorOperators.LSHR, 1).or(
+          LongVector.fromArray(SPECIES, filled, row + i + 1).lanewise(VectorOperators.LSHL, 63));
+      LongVector fLeft = f.lanewise(VectorOperators.LSHL, 1).or(
+          LongVector.fromArray(SPECIES, filled, row + i - 1).lanewise(VectorOperators.LSHR, 63));
+      LongVector east = LongVector.fromArray(SPECIES, filler.east, row + i);
+      LongVector eLeft = east.lanewise(VectorOperators.LSHL, 1).or(
+          LongVector.fromArray(SPECIES, filler.east, row + i - 1)
+              .lanewise(VectorOperators.LSHR, 63));
+      LongVector e = east.lanewise(VectorOperators.AND_NOT, fRight);
+      LongVector w = eLeft.lanewise(VectorOperators.AND_NOT, fLeft);
+      LongVector n = y == 0 ? none
+          : LongVector.fromArray(SPECIES, filler.south, above + i)
+              .lanewise(VectorOperators.AND_NOT, LongVector.fromArray(SPECIES, filled, above + i));
+      LongVector s = y == filler.height - 1 ? none
+          : LongVector.fromArray(SPECIES, filler.south, row + i)
+              .lanewise(VectorOperators.AND_NOT, LongVector.fromArray(SPECIES, filled, below + i));
+      // cells with at least two of the four passages left
+      LongVector twoOrMore = e.and(w).or(n.and(s))
+          .or(e.lanewise(VectorOperators.XOR, w).and(n.lanewise(VectorOperators.XOR, s)));
+      f.or(twoOrMore.not()).intoArray(filled, row + i);
+    }
+    filled[row] |= filler.deadEnds(y, 0);
+    for (; i < words; i++) {
+      filled[row + i] |= filler.deadEnds(y, i);
+    }
+  }
+}
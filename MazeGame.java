@@ -104,6 +104,10 @@ class Edge {
   Node b;
   // weight of this edge
   int weight;
+  // is this edge an open passage? kept by MazeUtils.connect and disconnect
+  boolean passage = false;
+  // where this edge is in its maze's list of passages, -1 if it is not in one
+  int slot = -1;
 
   Edge(Node a, Node b, int weight) {
     this.a = a;
@@ -162,6 +166,14 @@ class MazeWorld extends World {
   // hashmap to reconstruct the path from
   HashMap<String, Edge> cameFromEdge = new HashMap<String, Edge>();
 
+  // every step of the search so far, null until one is started
+  SearchLog searchLog = null;
+  // the step of the search shown, which is the end of the log unless it has
+  // been rewound
+  int searchStep = 0;
+  // steps of the search shown per simulation step, negative to play it backward
+  int playSpeed = 1;
+
   // The player of this world
   Player player = new Player(MazeUtils.getStart(this.nodes));
 
@@ -172,6 +184,12 @@ class MazeWorld extends World {
   // 0 for no direction bias, 1 for vertical, 2 for horizontal
   int bias = 0;
 
+  // fraction of the edges left out of the spanning tree to open anyway,
+  // 0 for a perfect maze
+  double braid = 0;
+  // the braids "l" steps the next maze through
+  static final double[] BRAIDS = { 0, 0.1, 0.3, 1.0 };
+
   // if true, prevent a new search from being started
   boolean newSearchBlock = false;
 
@@ -179,27 +197,100 @@ class MazeWorld extends World {
   ArrayList<Edge> edges = initializeMaze();
 
   // the path from beginning to end of this maze
-  ArrayList<Node> path = depthFirstSearch();
+  ArrayList<Node> path = MazeUtils.findPath(this.nodes, this.braid);
+
+  // mazes made ahead of time for the next reset, started with the world so
+  // even the first reset finds one ready
+  MazePrefetcher prefetcher = this.startPrefetcher();
+
+  // bots let loose in this maze, null until "a" is pressed and they are ready
+  BotSwarm bots = null;
+  // the bots being made in the background, null when none are
+  java.util.concurrent.Future<BotSwarm> comingBots = null;
 
+  // keeps the path up to date as doors open and close, null until one does
+  DynamicMaze doors = null;
+
+  // turns real time into simulation steps, null for one step per tick
+  FixedStepClock clock = null;
+
+  // has anything been changed since the last scene was drawn?
+  boolean dirty = true;
+  WorldScene lastScene = null;
+  // scenes drawn from scratch so far, rather than reused
+  int redraws = 0;
+  // the most frames in a row skipped while the simulation is behind, so the
+  // display still moves when it stays behind
+  static final int MAX_SKIPPED = 3;
+  // changed frames skipped in a row so far
+  int skipped = 0;
+
+  // draw the world, reusing the last scene if nothing has changed since it
+  // was drawn or if the simulation is behind and this frame can be skipped
   public WorldScene makeScene() {
+    if (this.lastScene != null && !this.dirty) {
+      return this.lastScene;
+    }
+    if (this.lastScene != null && this.clock != null && this.clock.behind
+        && this.skipped < MazeWorld.MAX_SKIPPED) {
+      this.skipped++;
+      return this.lastScene;
+    }
+    this.skipped = 0;
+    this.dirty = false;
+    this.redraws++;
     WorldScene bg = new WorldScene(600, 800);
     if (this.state == 0) {
       makeImageHelp(0, MazeWorld.WORLDWIDTH / 2, bg);
       makeImageHelp(MazeWorld.WORLDWIDTH / 2, MazeWorld.WORLDWIDTH, bg);
       player.draw(bg);
+      this.drawBots(bg);
     }
     else if (this.state == 1) {
       makeImageHelp(0, MazeWorld.WORLDWIDTH / 2, bg);
       makeImageHelp(MazeWorld.WORLDWIDTH / 2, MazeWorld.WORLDWIDTH, bg);
       player.draw(bg);
+      this.drawBots(bg);
       String msg = "The maze is solved, press N to start a new maze";
       bg.placeImageXY(new TextImage(msg, new Color(255, 0, 0)), 200, 200);
     }
     WorldImage socre = new TextImage(this.player.getScore(), Color.black);
     bg.placeImageXY(socre, 400, 610);
+    this.lastScene = bg;
     return bg;
   }
 
+  // start making mazes with this world's settings in the background
+  MazePrefetcher startPrefetcher() {
+    MazePrefetcher result = new MazePrefetcher(this.random.nextLong());
+    result.configure(this.bias, this.braid);
+    return result;
+  }
+
+  // stop making mazes for this world once it is no longer played
+  void shutdown() {
+    this.prefetcher.shutdown();
+  }
+
+  // run this world with the simulation stepping the given number of times a
+  // second, however often frames are drawn
+  boolean play(double stepsPerSecond, double frameSeconds) {
+    // catch up at most four frames' worth of steps at once, dropping the rest
+    int maxSteps = Math.max(1, (int) Math.ceil(stepsPerSecond * frameSeconds) * 4);
+    this.clock = new FixedStepClock(stepsPerSecond, maxSteps);
+    return this.bigBang(800, 620, frameSeconds);
+  }
+
+  // draw the bots, if any, with how many have finished and how fast they move
+  void drawBots(WorldScene bg) {
+    if (this.bots != null) {
+      this.bots.draw(bg);
+      String msg = this.bots.finishedCount() + "/" + this.bots.cells.length + " bots done, "
+          + Math.round(this.bots.movesPerSecond()) + " moves/s";
+      bg.placeImageXY(new TextImage(msg, Color.black), 150, 610);
+    }
+  }
+
   // draw cells and edges in rows between given values
   void makeImageHelp(int min, int max, WorldScene bg) {
     for (ArrayList<Node> l : nodes) {
@@ -209,45 +300,63 @@ class MazeWorld extends World {
         }
       }
     }
-    ArrayList<Edge> nonEdges = allEdges;
-    nonEdges.removeAll(edges);
-    for (Edge e : nonEdges) {
-      if (min <= e.a.x + 1 && max > e.a.x) {
+    for (Edge e : this.allEdges) {
+      if (!e.passage && min <= e.a.x + 1 && max > e.a.x) {
         e.draw(bg);
       }
     }
   }
 
-  // handle key events
+  // handle key events, marking the scene for redrawing only when a key
+  // changed something drawn
   public void onKeyEvent(String s) {
-    // reset the maze
+    Node was = this.player.loc;
+    boolean seen = was.visitByPlayer;
+    // reset the maze to one made ahead of time; it is a new graph of Nodes and
+    // Edges each time, as only GraphMaze loops run without garbage in a
+    // MazeWorkspace
     if (s.equals("n")) {
-      this.nodes = initializeNodes();
-      this.allEdges = initializeEdges();
+      PreparedMaze next = this.prefetcher.take(this.bias, this.braid);
+      this.nodes = next.nodes;
+      this.allEdges = next.allEdges;
+      this.edges = next.edges;
+      this.path = next.path;
 
       this.breadthFirstWorkList.clear();
       this.depthFirstWorkList.clear();
       this.cameFromEdge.clear();
       this.player = new Player(MazeUtils.getStart(this.nodes));
-      this.edges = initializeMaze();
       this.newSearchBlock = false;
       this.tickSearch = "";
+      this.searchLog = null;
+      this.searchStep = 0;
+      this.playSpeed = 1;
       this.state = 0;
+      this.bots = null;
+      if (this.comingBots != null) {
+        this.comingBots.cancel(true);
+        this.comingBots = null;
+      }
+      this.doors = null;
       MazeWorld.PATHVIS = true;
       MazeWorld.PATHVI = false;
-      // this.path = depthFirstSearch();
+      this.dirty = true;
     }
     // start breadth-first search
     if (s.equals("b") && !this.newSearchBlock) {
       this.newSearchBlock = true;
       breadthFirstWorkList.add(MazeUtils.getStart(this.nodes));
       this.tickSearch = "bfs";
+      this.searchLog = new SearchLog(WORLDWIDTH * WORLDHEIGHT);
+      this.dirty = true;
     }
     // start depth-first search
     if (s.equals("d") && !this.newSearchBlock) {
       this.newSearchBlock = true;
       depthFirstWorkList.add(MazeUtils.getStart(this.nodes));
       this.tickSearch = "dfs";
+      this.searchLog = new SearchLog(WORLDWIDTH * WORLDHEIGHT);
+      this.dirty = true;
     }
     // move the player up one
     if (s.equals("up")) {
@@ -265,60 +374,279 @@ class MazeWorld extends World {
     if (s.equals("right")) {
       player.moveRight(this.path);
     }
+    // bumping into a wall changes nothing
+    if (this.player.loc != was || this.player.loc.visitByPlayer != seen) {
+      this.dirty = true;
+    }
+    // open or close a random wall like a door
+    if (s.equals("h")) {
+      this.dirty |= this.toggleDoor(this.allEdges.get(this.random.nextInt(this.allEdges.size())));
+    }
+    // let a swarm of bots loose in this maze, once they are made off the
+    // event thread
+    if (s.equals("a") && this.comingBots == null) {
+      // the bots walk the maze the doors open and close
+      GraphMaze maze = this.doors().maze;
+      long seed = this.random.nextLong();
+      java.util.concurrent.ForkJoinPool pool = java.util.concurrent.ForkJoinPool.commonPool();
+      this.comingBots = pool.submit(() -> BotSwarm.mixed(maze, 999, seed, pool));
+    }
+    // play the search slower or backward, or faster
+    if (s.equals(",")) {
+      this.playSpeed = MazeWorld.slower(this.playSpeed);
+    }
+    if (s.equals(".")) {
+      this.playSpeed = MazeWorld.faster(this.playSpeed);
+    }
+    // jump to the start or the end of the search so far
+    int step = this.searchStep;
+    if (s.equals("[") && this.searchLog != null) {
+      this.scrubTo(0);
+    }
+    if (s.equals("]") && this.searchLog != null) {
+      this.scrubTo(this.searchLog.size);
+    }
+    this.dirty |= this.searchStep != step;
+    // loop the mazes from the next reset on more, wrapping back to none
+    if (s.equals("l")) {
+      double next = 0;
+      for (int i = MazeWorld.BRAIDS.length - 1; i >= 0; i--) {
+        if (MazeWorld.BRAIDS[i] > this.braid) {
+          next = MazeWorld.BRAIDS[i];
+        }
+      }
+      this.braid = next;
+      this.prefetcher.configure(this.bias, this.braid);
+    }
     // toggle path visibility
     if (s.equals("t")) {
       MazeWorld.PATHVIS = !MazeWorld.PATHVIS;
       MazeWorld.PATHVI = !MazeWorld.PATHVI;
+      this.dirty = true;
     }
 
   }
 
-  // advance the world one tick
+  // advance the world one tick: run the simulation steps due since the last
+  // tick, or a single step if there is no clock
   public void onTick() {
-    // run one tick of breadth first search
-    if (this.tickSearch.equals("bfs") && !breadthFirstWorkList.isEmpty() && this.state == 0) {
-      Node next = breadthFirstWorkList.poll();
-      if (next.visited) {
-        // dont do anything
+    int steps = this.clock == null ? 1 : this.clock.stepsDue(System.nanoTime());
+    for (int i = 0; i < steps; i++) {
+      if (this.simulate()) {
+        this.dirty = true;
+      }
+    }
+  }
+
+  // run one step of the world, returning true if anything changed
+  boolean simulate() {
+    boolean changed = false;
+    // take the bots once they are ready
+    if (this.comingBots != null && this.comingBots.isDone()) {
+      try {
+        this.bots = this.comingBots.get();
+        changed = true;
       }
-      else if (next.isTarget()) {
-        reconstruct(cameFromEdge, next);
+      catch (java.util.concurrent.ExecutionException
+          | java.util.concurrent.CancellationException e) {
+        // no bots this time
       }
-      else {
-        for (Node n : next.getNeighbors()) {
-          if (!n.visited) {
-            breadthFirstWorkList.add(n);
-            Edge temp = new Edge(next, n, 0);
-            cameFromEdge.put(n.toString(), temp);
-          }
-        }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
       }
-      next.visited = true;
+      this.comingBots = null;
+    }
+    // move every bot once
+    if (this.bots != null && this.state == 0) {
+      long moves = this.bots.totalMoves;
+      this.bots.step();
+      changed = this.bots.totalMoves != moves;
+    }
+    // move the search along
+    if (this.searchLog != null && this.playSearch()) {
+      changed = true;
+    }
+
+    if (this.state == 0 && (this.player.loc.isTarget() || MazeUtils.getStart(this.nodes).path)) {
+      this.state = 1;
+      changed = true;
+    }
+    return changed;
+  }
+
+  // the maze the doors open and close in, made on first use
+  DynamicMaze doors() {
+    if (this.doors == null) {
+      this.doors = new DynamicMaze(GraphMaze.fromNodes(this.nodes));
+    }
+    return this.doors;
+  }
+
+  // open the given edge if it is a wall or close it if it is a passage, then
+  // repair the path to the target rather than search for it again, and the
+  // solution of any bots walking the maze. A passage that is the only way
+  // from the start to the target stays open, and false is returned; so does
+  // every door while bots are still being made from the maze
+  boolean toggleDoor(Edge e) {
+    if (this.comingBots != null) {
+      return false;
+    }
+    this.doors();
+    boolean open = !e.passage;
+    this.doors.setPassage(this.cellOf(e.a), this.cellOf(e.b), open);
+    if (!open && this.doors.path().length == 0) {
+      this.doors.setPassage(this.cellOf(e.a), this.cellOf(e.b), true);
+      return false;
+    }
+    if (open) {
+      e.slot = this.edges.size();
+      this.edges.add(e);
+      MazeUtils.connect(e);
     }
-    // run one tick of depth first search
-    if (this.tickSearch.equals("dfs") && !depthFirstWorkList.isEmpty() && this.state == 0) {
-      Node next = depthFirstWorkList.pop();
-      if (next.visited) {
-        // dont do anything
+    else {
+      // move the last passage into the closed one's place
+      Edge last = this.edges.remove(this.edges.size() - 1);
+      if (last != e) {
+        this.edges.set(e.slot, last);
+        last.slot = e.slot;
       }
-      else if (next.isTarget()) {
-        reconstruct(cameFromEdge, next);
+      e.slot = -1;
+      MazeUtils.disconnect(e);
+    }
+    // a solution on show moves to the new path
+    boolean shown = MazeUtils.getStart(this.nodes).path;
+    for (Node n : this.path) {
+      n.path = false;
+    }
+    int[] cells = this.doors.path();
+    this.path = new ArrayList<Node>();
+    for (int c : cells) {
+      this.path.add(this.nodeAt(c));
+      this.nodeAt(c).path = shown;
+    }
+    if (this.searchLog != null && this.searchLog.solution != null) {
+      this.searchLog.solution = cells;
+    }
+    if (this.bots != null) {
+      this.bots.markSolution(cells, cells.length);
+    }
+    return true;
+  }
+
+  // move the search shown by playSpeed steps, replaying its log where it has
+  // been recorded and searching on past the end while the maze is unsolved,
+  // returning true if the step shown changed
+  boolean playSearch() {
+    int from = this.searchStep;
+    int goal = Math.max(0, from + this.playSpeed);
+    this.scrubTo(Math.min(goal, this.searchLog.size));
+    while (this.searchStep < goal && this.state == 0 && this.searchLog.solvedAt < 0
+        && this.searchOnce()) {
+      this.searchStep++;
+    }
+    return this.searchStep != from;
+  }
+
+  // run one step of the breadth or depth first search and record it, or
+  // return false if the worklist is empty
+  boolean searchOnce() {
+    boolean bfs = this.tickSearch.equals("bfs");
+    if (bfs ? breadthFirstWorkList.isEmpty() : depthFirstWorkList.isEmpty()) {
+      return false;
+    }
+    Node next = bfs ? breadthFirstWorkList.poll() : depthFirstWorkList.pop();
+    this.searchLog.record(this.cellOf(next));
+    if (next.visited) {
+      // dont do anything
+    }
+    else if (next.isTarget()) {
+      reconstruct(cameFromEdge, next);
+      ArrayList<Integer> solution = new ArrayList<Integer>();
+      for (ArrayList<Node> l : nodes) {
+        for (Node n : l) {
+          if (n.path) {
+            solution.add(this.cellOf(n));
+          }
+        }
       }
-      else {
-        for (Node n : next.getNeighbors()) {
-          if (!n.visited) {
+      this.searchLog.solved(solution.stream().mapToInt(Integer::intValue).toArray());
+    }
+    else {
+      for (Node n : next.getNeighbors()) {
+        if (!n.visited) {
+          if (bfs) {
+            breadthFirstWorkList.add(n);
+          }
+          else {
             depthFirstWorkList.add(n);
-            Edge temp = new Edge(next, n, 0);
-            cameFromEdge.put(n.toString(), temp);
           }
+          Edge temp = new Edge(next, n, 0);
+          cameFromEdge.put(n.toString(), temp);
         }
       }
-      next.visited = true;
     }
+    next.visited = true;
+    return true;
+  }
 
-    if (this.player.loc.isTarget() || MazeUtils.getStart(this.nodes).path) {
-      this.state = 1;
+  // show the search as it was after the given recorded step: nearby steps
+  // flip the cells in between, far ones are rebuilt from a checkpoint
+  void scrubTo(int step) {
+    // already showing it, so there is nothing to redraw
+    if (step == this.searchStep) {
+      return;
+    }
+    SearchLog log = this.searchLog;
+    boolean wasSolved = log.solvedBy(this.searchStep);
+    if (Math.abs(step - this.searchStep) > log.interval) {
+      long[] visited = log.visitedAt(step, null);
+      for (ArrayList<Node> l : nodes) {
+        for (Node n : l) {
+          n.visited = ParallelBfs.get(visited, this.cellOf(n));
+        }
+      }
+    }
+    else {
+      log.forEachChange(this.searchStep, step, c -> this.nodeAt(c).visited ^= true);
+    }
+    if (wasSolved != log.solvedBy(step)) {
+      for (int c : log.solution) {
+        this.nodeAt(c).path = !wasSolved;
+      }
+    }
+    // the maze is only solved again once the path is back or the player is there
+    if (wasSolved && !log.solvedBy(step) && !this.player.loc.isTarget()) {
+      this.state = 0;
+    }
+    this.searchStep = step;
+    this.dirty = true;
+  }
+
+  // the id of the given node in the search log
+  int cellOf(Node n) {
+    return n.y * WORLDWIDTH + n.x;
+  }
+
+  // the node with the given id in the search log
+  Node nodeAt(int cell) {
+    return this.nodes.get(cell % WORLDWIDTH).get(cell / WORLDWIDTH);
+  }
+
+  // the next playing speed up: backward slower, then paused, then forward
+  // faster, doubling each time
+  static int faster(int speed) {
+    if (speed < -1) {
+      return speed / 2;
+    }
+    return speed <= 0 ? speed + 1 : Math.min(speed * 2, 1 << 24);
+  }
+
+  // the next playing speed down, the other way from faster
+  static int slower(int speed) {
+    if (speed > 1) {
+      return speed / 2;
     }
+    return speed >= 0 ? speed - 1 : Math.max(speed * 2, -(1 << 24));
   }
 
   // set all nodes' path field in the path to true
@@ -336,11 +664,41 @@ class MazeWorld extends World {
 
   // create ArrayList of Nodes based on world size
   ArrayList<ArrayList<Node>> initializeNodes() {
+    return MazeUtils.initializeNodes(WORLDWIDTH, WORLDHEIGHT);
+  }
+
+  // create an ArrayList of Edges with random weights between all of this
+  // world's nodes
+  ArrayList<Edge> initializeEdges() {
+    return MazeUtils.initializeEdges(this.nodes, this.random, this.bias);
+  }
+
+  // return an ArrayList<Edge> of edges in the maze
+  ArrayList<Edge> initializeMaze() {
+    return MazeUtils.initializeMaze(this.nodes, this.allEdges, this.braid);
+  }
+
+  // return a HashMap where each node in given ArrayList is mapped to itself
+  void initRepresentatives(HashMap<String, String> h, ArrayList<ArrayList<Node>> nodes) {
+    MazeUtils.initRepresentatives(h, nodes);
+  }
+
+  // Find the path to the end using depth-first search
+  ArrayList<Node> depthFirstSearch() {
+    return MazeUtils.depthFirstSearch(this.nodes);
+  }
+
+}
+
+// to hold utility methods
+class MazeUtils {
+  // create ArrayList of Nodes of the given size
+  static ArrayList<ArrayList<Node>> initializeNodes(int width, int height) {
     ArrayList<ArrayList<Node>> result = new ArrayList<ArrayList<Node>>();
 
-    for (int x = 0; x < WORLDWIDTH; x++) {
+    for (int x = 0; x < width; x++) {
       result.add(new ArrayList<Node>());
-      for (int y = 0; y < WORLDHEIGHT; y++) {
+      for (int y = 0; y < height; y++) {
         Node n = new Node(x, y);
         result.get(x).add(n);
       }
@@ -348,13 +706,16 @@ class MazeWorld extends World {
     return result;
   }
 
-  // create an ArrayList of Edges with random weights between all of this
-  // world's nodes
-  ArrayList<Edge> initializeEdges() {
+  // create an ArrayList of Edges with random weights between all of the given
+  // nodes, 0 for no direction bias, 1 for vertical, 2 for horizontal
+  static ArrayList<Edge> initializeEdges(ArrayList<ArrayList<Node>> nodes, Random random,
+      int bias) {
     ArrayList<Edge> result = new ArrayList<Edge>();
 
     int width = nodes.size();
     int height = nodes.get(0).size();
+    int[] weights = MazeUtils.columnWeights(width, height, random.nextLong());
+    int nextWeight = 0;
 
     for (int x = 0; x < width; x++) {
       for (int y = 0; y < height; y++) {
@@ -362,8 +723,8 @@ class MazeWorld extends World {
         // if there is a node to the right of n
         if (x < width - 1) {
           // initial random weight
-          int valr = this.random.nextInt(1000000);
-          if (this.bias == 2) {
+          int valr = weights[nextWeight++];
+          if (bias == 2) {
             // this edge will be chosen first with weight 0
             valr = 0;
           }
@@ -374,8 +735,8 @@ class MazeWorld extends World {
         // if there is a node below n
         if (y < height - 1) {
           // initial random weight
-          int vald = this.random.nextInt(1000000);
-          if (this.bias == 1) {
+          int vald = weights[nextWeight++];
+          if (bias == 1) {
             // this edge will be chosen first with weight 0
             vald = 0;
           }
@@ -388,39 +749,72 @@ class MazeWorld extends World {
     return result;
   }
 
-  // return an ArrayList<Edge> of edges in the maze
-  ArrayList<Edge> initializeMaze() {
-    HashMap<String, String> representatives = new HashMap<String, String>();
+  // random weights in [0, 1000000) for the edges of a width by height grid of
+  // nodes, in the order initializeEdges makes them. Each column is filled in
+  // parallel from its own SplittableRandom, split off the seed in column order
+  // before any column runs, so the weights never depend on the thread count
+  static int[] columnWeights(int width, int height, long seed) {
+    // every column but the last has an edge right and an edge down from each node but one
+    int stride = 2 * height - 1;
+    int[] result = new int[(width - 1) * stride + height - 1];
+    SplittableRandom root = new SplittableRandom(seed);
+    SplittableRandom[] columns = new SplittableRandom[width];
+    for (int x = 0; x < width; x++) {
+      columns[x] = root.split();
+    }
+    java.util.stream.IntStream.range(0, width).parallel().forEach(x -> {
+      int end = Math.min(result.length, (x + 1) * stride);
+      for (int i = x * stride; i < end; i++) {
+        result[i] = columns[x].nextInt(1000000);
+      }
+    });
+    return result;
+  }
+
+  // return an ArrayList<Edge> of edges in the maze carved from the given
+  // nodes and edges, braiding the given fraction of left out edges back in.
+  // The edges are taken lightest first, equal weights in list order, and
+  // joined in a UnionFind over the nodes' cell ids
+  static ArrayList<Edge> initializeMaze(ArrayList<ArrayList<Node>> nodes,
+      ArrayList<Edge> allEdges, double braid) {
+    int height = nodes.get(0).size();
     ArrayList<Edge> edgesInTree = new ArrayList<Edge>();
-    ArrayList<Edge> worklist = this.allEdges;
-    // sort edges by weight
-    MazeUtils.sort(worklist);
-    // initialize the HashMap
-    initRepresentatives(representatives, this.nodes);
-
-    int nextIdx = 0;
-    while (MazeUtils.moreThanOneTree(representatives)) {
-      Edge next = worklist.get(nextIdx);
-      if (MazeUtils.find(representatives, next.a.toString())
-          .equals(MazeUtils.find(representatives, next.b.toString()))) {
-        // dont do anything
+    // edges that would close a loop, lightest first, kept only to braid
+    ArrayList<Edge> leftOut = braid > 0 ? new ArrayList<Edge>() : null;
+    int[] weights = new int[allEdges.size()];
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = allEdges.get(i).weight;
+    }
+    long[] order = GraphMaze.sortByWeight(weights);
+    UnionFind sets = new UnionFind(nodes.size() * height);
+    for (long packed : order) {
+      if (sets.trees == 1 && leftOut == null) {
+        break;
       }
-      else {
+      Edge next = allEdges.get((int) packed);
+      if (sets.trees > 1
+          && sets.union(next.a.x * height + next.a.y, next.b.x * height + next.b.y)) {
         edgesInTree.add(next);
-        MazeUtils.union(representatives, MazeUtils.find(representatives, next.a.toString()),
-            MazeUtils.find(representatives, next.b.toString()));
       }
-      nextIdx++;
+      else if (leftOut != null) {
+        leftOut.add(next);
+      }
+    }
+    // braid the lightest of the left out edges back in
+    if (leftOut != null) {
+      int extra = (int) Math.round(leftOut.size() * Math.min(1, braid));
+      edgesInTree.addAll(leftOut.subList(0, extra));
     }
     // connect the nodes in the selected edges
-    for (Edge e : edgesInTree) {
-      MazeUtils.connect(e);
+    for (int i = 0; i < edgesInTree.size(); i++) {
+      edgesInTree.get(i).slot = i;
+      MazeUtils.connect(edgesInTree.get(i));
     }
     return edgesInTree;
   }
 
   // return a HashMap where each node in given ArrayList is mapped to itself
-  void initRepresentatives(HashMap<String, String> h, ArrayList<ArrayList<Node>> nodes) {
+  static void initRepresentatives(HashMap<String, String> h, ArrayList<ArrayList<Node>> nodes) {
     h.clear();
     for (ArrayList<Node> l : nodes) {
       for (Node n : l) {
@@ -430,39 +824,41 @@ class MazeWorld extends World {
     }
   }
 
-  // Find the path to the end using depth-first search
-  ArrayList<Node> depthFirstSearch() {
-    HashMap<String, Edge> cameFromEdge = new HashMap<String, Edge>();
-    Stack<Node> worklist = new Stack<Node>();
-    ArrayList<Node> result = new ArrayList<Node>();
+  // Find the path to the end of the given nodes using depth-first search
+  // over a MazeGraph copy of their passages, from the end back to the start,
+  // marking the nodes on it as visited in finding it
+  static ArrayList<Node> depthFirstSearch(ArrayList<ArrayList<Node>> nodes) {
+    GraphMaze maze = GraphMaze.fromNodes(nodes);
+    return MazeUtils.markPath(nodes, maze,
+        GraphSearch.depthFirst(maze, maze.start, maze.target));
+  }
 
-    worklist.add(MazeUtils.getStart(this.nodes));
-    while (!worklist.isEmpty()) {
-      Node next = worklist.pop();
-      if (next.hiddenVisited) {
-        // dont do anything
-      }
-      else if (next.isTarget()) {
-        result = MazeUtils.reconstruct(cameFromEdge, next);
-      }
-      else {
-        for (Node n : next.getNeighbors()) {
-          if (!n.hiddenVisited) {
-            worklist.add(n);
-            Edge temp = new Edge(next, n, 0);
-            cameFromEdge.put(n.toString(), temp);
-          }
-        }
-      }
-      next.hiddenVisited = true;
+  // Find the path to the end of the given nodes, carved with the given
+  // braid: depth-first in a perfect maze, where it is the only path, and
+  // breadth-first once braiding has opened loops, so it is the shortest.
+  // The world's passages all cost the same, so no weighted search is needed
+  static ArrayList<Node> findPath(ArrayList<ArrayList<Node>> nodes, double braid) {
+    if (braid <= 0) {
+      return MazeUtils.depthFirstSearch(nodes);
     }
-    return result;
+    GraphMaze maze = GraphMaze.fromNodes(nodes);
+    return MazeUtils.markPath(nodes, maze,
+        GraphSearch.breadthFirst(maze, maze.start, maze.target));
   }
 
-}
+  // the nodes at the given cells of maze, a copy of the nodes, marked as
+  // visited in finding them
+  static ArrayList<Node> markPath(ArrayList<ArrayList<Node>> nodes, GraphMaze maze,
+      int[] cells) {
+    ArrayList<Node> result = new ArrayList<Node>();
+    for (int c : cells) {
+      Node n = nodes.get(maze.graph.cellX(c)).get(maze.graph.cellY(c));
+      n.hiddenVisited = true;
+      result.add(n);
+    }
+    return result;
+  }
 
-// to hold utility methods
-class MazeUtils {
   // Sorts the given ArrayList of edges according to their edge
   // weights
   static void sort(ArrayList<Edge> arr) {
@@ -510,6 +906,7 @@ class MazeUtils {
   static void connect(Edge e) {
     Node a = e.a;
     Node b = e.b;
+    e.passage = true;
     if (a.x == b.x && e.a.y == e.b.y + 1) {
       e.a.up = e.b;
       e.b.down = e.a;
@@ -528,6 +925,27 @@ class MazeUtils {
     }
   }
 
+  // Removes the link between the nodes of the given edge, undoing connect
+  static void disconnect(Edge e) {
+    e.passage = false;
+    if (e.a.up == e.b) {
+      e.a.up = null;
+      e.b.down = null;
+    }
+    else if (e.a.down == e.b) {
+      e.a.down = null;
+      e.b.up = null;
+    }
+    else if (e.a.left == e.b) {
+      e.a.left = null;
+      e.b.right = null;
+    }
+    else if (e.a.right == e.b) {
+      e.a.right = null;
+      e.b.left = null;
+    }
+  }
+
   // Returns the starting node from given ArrayList of Nodes
   static Node getStart(ArrayList<ArrayList<Node>> src) {
     return src.get(0).get(0);
@@ -634,341 +1052,5326 @@ class EdgeComparator implements Comparator<Edge> {
   }
 }
 
-// to hold tests and examples for MazeWorlds
-// some tests assume a 15x20 world
-class ExamplesMazeWorld {
-  Node n1;
-  Node n2;
-  Node n3;
-  Node n4;
-  Node n5;
-  Node n6;
-  Node n7;
-  Node n8;
-  Node n9;
-  Node n10;
-
-  Edge e12;
-  Edge e23;
-  Edge e45;
-  Edge e56;
-  Edge e78;
-  Edge e89;
-  Edge e14;
-  Edge e25;
-  Edge e36;
-  Edge e47;
-  Edge e58;
-  Edge e69;
+// to represent the topology of a maze as a compressed-sparse-row graph:
+// the neighbors of cell c are targets[offsets[c]] up to targets[offsets[c + 1] - 1]
+class MazeGraph {
+  // number of cells in this graph
+  int cells;
+  // size of the layout the cells are drawn in
+  int width;
+  int height;
+  // start of each cell's run of adjacency slots, one extra entry at the end
+  int[] offsets;
+  // the neighboring cell of each adjacency slot
+  int[] targets;
+  // the undirected edge id of each adjacency slot
+  int[] slotEdges;
+  // the two cells joined by each undirected edge
+  int[] edgeA;
+  int[] edgeB;
+  // number of edges in use, which is fewer than edgeA holds once layGrid
+  // has shrunk the graph
+  int edges;
+  // does every edge join cells at most one row and one column apart in the layout?
+  boolean local = true;
+  // how cells are numbered, or null for row by row
+  CellOrder order = null;
 
-  Player p1;
+  // number of edges drawn from each random stream by randomWeights
+  static final int WEIGHT_BLOCK = 1 << 14;
+  // the gamma of a SplittableRandom made from a seed alone
+  static final long SPLIT_GAMMA = 0x9e3779b97f4a7c15L;
 
-  MazeWorld maze = new MazeWorld();
+  // build the adjacency rows for the given undirected edges
+  MazeGraph(int cells, int width, int height, int[] edgeA, int[] edgeB) {
+    if (edgeA.length != edgeB.length) {
+      throw new IllegalArgumentException("Edge endpoint arrays differ in length");
+    }
+    this.cells = cells;
+    this.width = width;
+    this.height = height;
+    this.edgeA = edgeA;
+    this.edgeB = edgeB;
+    this.edges = edgeA.length;
+    for (int e = 0; e < edgeA.length; e++) {
+      if (edgeA[e] < 0 || edgeA[e] >= cells || edgeB[e] < 0 || edgeB[e] >= cells
+          || edgeA[e] == edgeB[e]) {
+        throw new IllegalArgumentException("Invalid edge " + edgeA[e] + "-" + edgeB[e]);
+      }
+    }
+    this.offsets = new int[cells + 1];
+    this.targets = new int[edgeA.length * 2];
+    this.slotEdges = new int[edgeA.length * 2];
+    this.index();
+  }
 
-  // Example of a MazeWorld
-  MazeWorld mw;
-  MazeWorld myWorld;
+  // fill in the adjacency rows from the edges in use, each cell's slots in
+  // edge order
+  void index() {
+    Arrays.fill(this.offsets, 0, this.cells + 1, 0);
+    for (int e = 0; e < this.edges; e++) {
+      this.offsets[this.edgeA[e] + 1]++;
+      this.offsets[this.edgeB[e] + 1]++;
+    }
+    for (int c = 0; c < this.cells; c++) {
+      this.offsets[c + 1] += this.offsets[c];
+    }
+    // fill each row from its start, which leaves offsets[c] at the start of
+    // row c + 1, then shift them back
+    for (int e = 0; e < this.edges; e++) {
+      int a = this.edgeA[e];
+      int b = this.edgeB[e];
+      this.targets[this.offsets[a]] = b;
+      this.slotEdges[this.offsets[a]++] = e;
+      this.targets[this.offsets[b]] = a;
+      this.slotEdges[this.offsets[b]++] = e;
+    }
+    for (int c = this.cells; c > 0; c--) {
+      this.offsets[c] = this.offsets[c - 1];
+    }
+    this.offsets[0] = 0;
+  }
 
-  // Example of EdgeComparator
-  Comparator<Edge> edgeComp = new EdgeComparator();
+  // lay this graph out again as the plain grid(width, height) would be,
+  // keeping its arrays when they are big enough, and return true if any had
+  // to grow
+  boolean layGrid(int width, int height) {
+    MazeGraph.checkSize(width, height);
+    int cells = width * height;
+    int edges = (width - 1) * height + width * (height - 1);
+    boolean grown = this.offsets.length < cells + 1 || this.edgeA.length < edges;
+    if (this.offsets.length < cells + 1) {
+      this.offsets = new int[cells + 1];
+    }
+    if (this.edgeA.length < edges) {
+      this.edgeA = new int[edges];
+      this.edgeB = new int[edges];
+      this.targets = new int[edges * 2];
+      this.slotEdges = new int[edges * 2];
+    }
+    this.cells = cells;
+    this.width = width;
+    this.height = height;
+    this.order = null;
+    this.local = true;
+    this.edges = 0;
+    for (int c = 0; c < cells; c++) {
+      if (c % width < width - 1) {
+        this.edgeA[this.edges] = c;
+        this.edgeB[this.edges++] = c + 1;
+      }
+      if (c / width < height - 1) {
+        this.edgeA[this.edges] = c;
+        this.edgeB[this.edges++] = c + width;
+      }
+    }
+    this.index();
+    return grown;
+  }
 
-  // Example of ArrayList of Edges
-  ArrayList<Edge> edgeList;
+  // the number of undirected edges in this graph
+  int edgeCount() {
+    return this.edges;
+  }
 
-  // Examples of ArrayList of Nodes
-  ArrayList<Node> l1;
-  ArrayList<Node> l2;
-  ArrayList<Node> l3;
+  // the number of neighbors of the given cell
+  int degree(int c) {
+    return this.offsets[c + 1] - this.offsets[c];
+  }
 
-  // Example of a 2D ArrayList of Nodes
-  ArrayList<ArrayList<Node>> nodeList;
+  // the cell at the other end of edge e from cell c
+  int other(int e, int c) {
+    return this.edgeA[e] == c ? this.edgeB[e] : this.edgeA[e];
+  }
 
-  // Example of HashMap<String, String>
-  HashMap<String, String> hash = new HashMap<String, String>();
-  HashMap<String, String> hash2 = new HashMap<String, String>();
+  // the id of the cell at the given layout coordinates
+  int cellAt(int x, int y) {
+    return this.order == null ? y * this.width + x : this.order.id(x, y);
+  }
 
-  // Example of HashMap<String, Edge>
-  HashMap<String, Edge> hash3 = new HashMap<String, Edge>();
+  // the layout column of the given cell
+  int cellX(int c) {
+    return this.order == null ? c % this.width : this.order.x(c);
+  }
 
-  // Example of ArrayList of Integer
-  ArrayList<Integer> arr1;
-  ArrayList<Integer> arr2;
-  ArrayList<Integer> arr3;
-  ArrayList<Integer> arr4;
-  ArrayList<ArrayList<Integer>> arrArr1;
-  ArrayList<ArrayList<Integer>> arrArr2;
-  ArrayList<Integer> resultArr1;
-  ArrayList<Integer> resultArr2;
+  // the layout row of the given cell
+  int cellY(int c) {
+    return this.order == null ? c / this.width : this.order.y(c);
+  }
 
-  // examples for posns
-  Posn n1Posn = new Posn(MazeWorld.EDGEWIDTH / 2, MazeWorld.EDGEHEIGHT / 2);
-  Posn n4Posn = new Posn(MazeWorld.EDGEWIDTH / 2, MazeWorld.EDGEHEIGHT + (MazeWorld.EDGEWIDTH / 2));
-  Posn n5Posn = new Posn(MazeWorld.EDGEHEIGHT + (MazeWorld.EDGEWIDTH / 2),
-      MazeWorld.EDGEHEIGHT + (MazeWorld.EDGEWIDTH / 2));
+  // a random weight in [0, 1000000) for every edge, as in initializeEdges
+  int[] randomWeights(Random random) {
+    return this.randomWeights(random.nextLong());
+  }
 
-  // Initialize values
-  void init() {
-    n1 = new Node(0, 0);
-    n2 = new Node(1, 0);
-    n3 = new Node(2, 0);
-    n4 = new Node(0, 1);
-    n5 = new Node(1, 1);
-    n6 = new Node(2, 1);
-    n7 = new Node(0, 2);
-    n8 = new Node(1, 2);
-    n9 = new Node(2, 2);
-    n10 = new Node(19, 14);
+  // a random weight in [0, 1000000) for every edge, made on the common pool
+  int[] randomWeights(long seed) {
+    return this.randomWeights(seed, java.util.concurrent.ForkJoinPool.commonPool());
+  }
 
-    e12 = new Edge(n1, n2, 1);
-    e23 = new Edge(n2, n3, 5);
-    e45 = new Edge(n4, n5, 8);
-    e56 = new Edge(n5, n6, 3);
-    e78 = new Edge(n7, n8, 7);
-    e89 = new Edge(n8, n9, 9);
-    e14 = new Edge(n1, n4, 1);
-    e25 = new Edge(n2, n5, 4);
-    e36 = new Edge(n3, n6, 11);
-    e47 = new Edge(n4, n7, 50);
-    e58 = new Edge(n5, n8, 3);
-    e69 = new Edge(n6, n9, 5);
+  // a random weight in [0, 1000000) for every edge, filled in blocks of
+  // WEIGHT_BLOCK edges on the given pool. Grid edges are listed row by row, so
+  // each block is a band of rows. Every block draws from its own
+  // SplittableRandom stream, split off the seed in block order before any
+  // block runs, so the weights depend only on the seed and never on the
+  // thread count
+  int[] randomWeights(long seed, java.util.concurrent.ForkJoinPool pool) {
+    int[] result = new int[this.edgeCount()];
+    int blocks = (result.length + WEIGHT_BLOCK - 1) / WEIGHT_BLOCK;
+    long[] seeds = new long[blocks];
+    long[] gammas = new long[blocks];
+    long root = seed;
+    for (int b = 0; b < blocks; b++) {
+      root += SPLIT_GAMMA;
+      seeds[b] = MazeGraph.mix64(root);
+      root += SPLIT_GAMMA;
+      gammas[b] = MazeGraph.mixGamma(root);
+    }
+    pool.submit(() -> java.util.stream.IntStream.range(0, blocks).parallel().forEach(b ->
+        MazeGraph.fillWeights(result, b * WEIGHT_BLOCK,
+            Math.min(result.length, (b + 1) * WEIGHT_BLOCK), seeds[b], gammas[b])
+    )).join();
+    return result;
+  }
 
-    edgeList = new ArrayList<Edge>(Arrays.asList(e36, e12));
+  // the same weights as randomWeights(seed) written into the front of the
+  // given array on this thread, allocating nothing
+  void randomWeights(long seed, int[] into) {
+    long root = seed;
+    for (int from = 0; from < this.edgeCount(); from += WEIGHT_BLOCK) {
+      root += SPLIT_GAMMA;
+      long streamSeed = MazeGraph.mix64(root);
+      root += SPLIT_GAMMA;
+      MazeGraph.fillWeights(into, from, Math.min(this.edgeCount(), from + WEIGHT_BLOCK),
+          streamSeed, MazeGraph.mixGamma(root));
+    }
+  }
 
-    l1 = new ArrayList<Node>();
-    l1.add(n1);
-    l2 = new ArrayList<Node>();
-    l2.add(n2);
-    l3 = new ArrayList<Node>();
-    l3.add(n3);
+  // fill into[from, to) with what SplittableRandom.nextInt(1000000) gives
+  // for the stream with the given seed and gamma. SplittableRandom is
+  // SplitMix64, so the streams are stepped here in longs rather than
+  // objects, which would be garbage on every reset of a MazeWorkspace
+  static void fillWeights(int[] into, int from, int to, long seed, long gamma) {
+    int bound = 1000000;
+    for (int e = from; e < to; e++) {
+      seed += gamma;
+      int r = MazeGraph.mix32(seed);
+      // redraw values from the uneven top of the range, as nextInt does
+      for (int u = r >>> 1; u + bound - 1 - (r = u % bound) < 0;) {
+        seed += gamma;
+        u = MazeGraph.mix32(seed) >>> 1;
+      }
+      into[e] = r;
+    }
+  }
 
-    nodeList = new ArrayList<ArrayList<Node>>();
-    nodeList.add(l1);
-    nodeList.add(l2);
-    nodeList.add(l3);
+  // the SplitMix64 output functions and gamma choice of SplittableRandom
+  static long mix64(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
 
-    hash.clear();
-    hash.put(n1.toString(), n1.toString());
-    hash.put(n2.toString(), n2.toString());
-    hash.put(n3.toString(), n3.toString());
+  static int mix32(long z) {
+    z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+    return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+  }
 
-    hash3.put(n2.toString(), e12);
-    hash3.put(n5.toString(), e25);
-    hash3.put(n6.toString(), e56);
-    hash3.put(n9.toString(), e69);
-    // ArrayLists of Integer
-    arr1 = new ArrayList<Integer>();
-    arr2 = new ArrayList<Integer>();
-    arr3 = new ArrayList<Integer>();
-    arr4 = new ArrayList<Integer>();
-    arr1.add(1);
-    arr2.add(2);
-    arr3.add(3);
-    arr4.add(4);
-    // ArrayList of ArrayLists of Integer
-    arrArr1 = new ArrayList<ArrayList<Integer>>();
-    arrArr1.add(arr1);
-    arrArr1.add(arr2);
-    arrArr1.add(arr3);
-    arrArr1.add(arr4);
-    arrArr2 = new ArrayList<ArrayList<Integer>>();
-    arrArr2.add(arr2);
-    arrArr2.add(arr4);
-    // Expected example after flattening the ArrayList of ArrayList of
-    // Integer
-    resultArr1 = new ArrayList<Integer>();
-    resultArr1.add(1);
-    resultArr1.add(2);
-    resultArr1.add(3);
-    resultArr1.add(4);
-    resultArr2 = new ArrayList<Integer>();
-    resultArr2.add(2);
-    resultArr2.add(4);
+  static long mixGamma(long z) {
+    z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+    z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    z = (z ^ (z >>> 33)) | 1L;
+    return Long.bitCount(z ^ (z >>> 1)) < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+  }
 
-    p1 = new Player(n1);
-    myWorld = new MazeWorld();
+  // a rectangular grid where each cell touches its 4 neighbors, with edges
+  // listed right then down for each cell in row order
+  static MazeGraph grid(int width, int height) {
+    return MazeGraph.rectangular(width, height, false);
   }
 
-  // initialize mw
-  void initMW() {
-    mw = new MazeWorld();
+  // a grid whose rows and columns wrap around at the borders
+  static MazeGraph torus(int width, int height) {
+    return MazeGraph.rectangular(width, height, true);
   }
 
-  // test the getPosn method
-  boolean testGetPosn(Tester t) {
-    init();
-    return t.checkExpect(n1.getPosn(), n1Posn) && t.checkExpect(n5.getPosn(), n5Posn)
-        && t.checkExpect(n4.getPosn(), n4Posn);
+  // a grid with its cells numbered along the given CellOrder curve, with
+  // edges listed right then down for each cell in id order
+  static MazeGraph grid(int width, int height, int curve) {
+    if (curve == CellOrder.ROWS) {
+      return MazeGraph.grid(width, height);
+    }
+    return MazeGraph.rectangular(width, height, false, new CellOrder(width, height, curve));
   }
 
-  // test the Edge comparator and the sort method
-  void testEdgeSort(Tester t) {
-    init();
-    t.checkExpect(edgeList.get(0), e36);
-    // sort edgeList
-    MazeUtils.sort(edgeList);
-    t.checkExpect(edgeList.get(0), e12);
+  // a 4-neighbor layout, wrapped at the borders if asked to
+  static MazeGraph rectangular(int width, int height, boolean wrap) {
+    return MazeGraph.rectangular(width, height, wrap, null);
+  }
 
-    t.checkExpect(edgeComp.compare(e12, e36) < 0, true);
-    t.checkExpect(edgeComp.compare(e12, e12) == 0, true);
-    t.checkExpect(edgeComp.compare(e36, e12) > 0, true);
+  // a 4-neighbor layout with its cells numbered in the given order, or row
+  // by row if it is null
+  static MazeGraph rectangular(int width, int height, boolean wrap, CellOrder order) {
+    MazeGraph.checkSize(width, height);
+    // a wrapped row of 2 would join the same pair of cells twice
+    boolean wrapX = wrap && width > 2;
+    boolean wrapY = wrap && height > 2;
+    IntPairList edges = new IntPairList(width * height * 2);
+    for (int c = 0; c < width * height; c++) {
+      int x = order == null ? c % width : order.x(c);
+      int y = order == null ? c / width : order.y(c);
+      // the columns and rows of the neighbors right and below, -1 if none
+      int right = x < width - 1 ? x + 1 : wrapX ? 0 : -1;
+      int below = y < height - 1 ? y + 1 : wrapY ? 0 : -1;
+      if (right >= 0) {
+        edges.add(c, order == null ? y * width + right : order.id(right, y));
+      }
+      if (below >= 0) {
+        edges.add(c, order == null ? below * width + x : order.id(x, below));
+      }
+    }
+    MazeGraph result = new MazeGraph(width * height, width, height, edges.firsts(),
+        edges.seconds());
+    result.order = order;
+    result.local = !wrapX && !wrapY;
+    return result;
   }
 
-  // test the union and find methods
-  void testUnionFind(Tester t) {
-    init();
-    t.checkExpect(MazeUtils.find(hash, n1.toString()), n1.toString());
-    t.checkExpect(MazeUtils.find(hash, n2.toString()), n2.toString());
-    t.checkExpect(MazeUtils.find(hash, n3.toString()), n3.toString());
-    // union the nodes
-    MazeUtils.union(hash, MazeUtils.find(hash, n1.toString()), MazeUtils.find(hash, n2.toString()));
-    t.checkExpect(MazeUtils.find(hash, n1.toString()), n2.toString());
-    // union the nodes
-    MazeUtils.union(hash, MazeUtils.find(hash, n1.toString()), MazeUtils.find(hash, n3.toString()));
-    t.checkExpect(MazeUtils.find(hash, n2.toString()), n3.toString());
+  // a hexagonal layout in offset rows: odd rows are shifted half a cell right,
+  // so each inner cell touches 6 neighbors
+  static MazeGraph hex(int width, int height) {
+    MazeGraph.checkSize(width, height);
+    IntPairList edges = new IntPairList(width * height * 3);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int c = y * width + x;
+        if (x < width - 1) {
+          edges.add(c, c + 1);
+        }
+        if (y < height - 1) {
+          // the two cells below sit at x - 1 and x on even rows, x and x + 1 on odd rows
+          int left = y % 2 == 0 ? x - 1 : x;
+          if (left >= 0) {
+            edges.add(c, c + width + left - x);
+          }
+          if (left + 1 < width) {
+            edges.add(c, c + width + left + 1 - x);
+          }
+        }
+      }
+    }
+    return new MazeGraph(width * height, width, height, edges.firsts(), edges.seconds());
   }
 
-  // test the moreThanOneTree method
-  void testMoreThanOneTree(Tester t) {
-    init();
-    t.checkExpect(MazeUtils.moreThanOneTree(hash), true);
-    MazeUtils.union(hash, MazeUtils.find(hash, n1.toString()), MazeUtils.find(hash, n2.toString()));
-    t.checkExpect(MazeUtils.moreThanOneTree(hash), true);
-    MazeUtils.union(hash, MazeUtils.find(hash, n1.toString()), MazeUtils.find(hash, n3.toString()));
-    t.checkExpect(MazeUtils.moreThanOneTree(hash), false);
+  // read an arbitrary graph: a first line holding the cell count, then one
+  // "a b" pair of cell ids per line; blank lines and lines starting with # are skipped
+  static MazeGraph read(java.io.BufferedReader in) throws java.io.IOException {
+    int cells = -1;
+    IntPairList edges = new IntPairList(16);
+    String line = in.readLine();
+    while (line != null) {
+      line = line.trim();
+      if (!line.isEmpty() && !line.startsWith("#")) {
+        String[] parts = line.split("\\s+");
+        if (cells < 0) {
+          cells = Integer.parseInt(parts[0]);
+        }
+        else if (parts.length == 2) {
+          edges.add(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        }
+        else {
+          throw new java.io.IOException("Expected two cell ids but got: " + line);
+        }
+      }
+      line = in.readLine();
+    }
+    if (cells < 0) {
+      throw new java.io.IOException("Missing cell count");
+    }
+    MazeGraph result = new MazeGraph(cells, cells, 1, edges.firsts(), edges.seconds());
+    result.local = false;
+    return result;
   }
 
-  // test the initRepresentatives method
-  void testInitRepresentatives(Tester t) {
-    init();
-    initMW();
-    // set hash2 with each node in nodeList pointing to itself
-    mw.initRepresentatives(hash2, nodeList);
-    t.checkExpect(hash, hash2);
+  // reject layouts with no cells
+  static void checkSize(int width, int height) {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Invalid size " + width + "x" + height);
+    }
   }
+}
 
-  // test the initializeNodes method
-  void testInitializeNodes(Tester t) {
-    init();
-    initMW();
-    ArrayList<ArrayList<Node>> nodes = mw.initializeNodes();
-    t.checkExpect(nodes.get(0).get(0), n1);
-    t.checkExpect(nodes.get(0).get(1), n4);
-    t.checkExpect(nodes.get(1).get(0), n2);
-    t.checkExpect(nodes.get(5).get(5).x == 5 && nodes.get(5).get(5).y == 5, true);
+// to collect pairs of ints without boxing them
+class IntPairList {
+  // the pairs, stored first, second, first, second...
+  int[] data;
+  // number of pairs held
+  int size = 0;
+
+  IntPairList(int capacity) {
+    this.data = new int[Math.max(2, capacity * 2)];
   }
 
-  // test the connect method, then test movement methods for players
-  void testConnect(Tester t) {
-    // test connect
-    init();
-    MazeUtils.connect(e12);
-    MazeUtils.connect(e23);
-    MazeUtils.connect(e45);
-    MazeUtils.connect(e56);
-    MazeUtils.connect(e78);
-    MazeUtils.connect(e89);
-    MazeUtils.connect(e14);
-    MazeUtils.connect(e47);
-    MazeUtils.connect(e25);
-    MazeUtils.connect(e58);
-    MazeUtils.connect(e36);
-    MazeUtils.connect(e69);
-    t.checkExpect(n5.up, n2);
-    t.checkExpect(n5.down, n8);
-    t.checkExpect(n5.left, n4);
-    t.checkExpect(n5.right, n6);
-    t.checkExpect(n8.up, n5);
-    t.checkExpect(n2.down, n5);
-    t.checkExpect(n4.right, n5);
-    t.checkExpect(n6.left, n5);
+  // add the given pair to the end of this list
+  void add(int a, int b) {
+    if (this.size * 2 == this.data.length) {
+      this.data = Arrays.copyOf(this.data, this.data.length * 2);
+    }
+    this.data[this.size * 2] = a;
+    this.data[this.size * 2 + 1] = b;
+    this.size++;
+  }
 
-    // test movement
-    t.checkExpect(p1.loc, n1);
+  // the first values of every pair
+  int[] firsts() {
+    int[] result = new int[this.size];
+    for (int i = 0; i < this.size; i++) {
+      result[i] = this.data[i * 2];
+    }
+    return result;
+  }
 
-    p1.moveRight(l3);
-    t.checkExpect(p1.loc, n2);
+  // the second values of every pair
+  int[] seconds() {
+    int[] result = new int[this.size];
+    for (int i = 0; i < this.size; i++) {
+      result[i] = this.data[i * 2 + 1];
+    }
+    return result;
+  }
+}
 
-    p1.moveDown(l2);
-    t.checkExpect(p1.loc, n5);
+// to hold a fixed number of ints wherever they are kept, so the algorithms
+// that need an int for each cell or edge run the same on the heap and off it
+interface IntArray {
+  // the number of ints held
+  int length();
 
-    p1.moveLeft(l1);
-    t.checkExpect(p1.loc, n4);
+  // the int at index i
+  int get(int i);
 
-    p1.moveUp(l2);
-    t.checkExpect(p1.loc, n1);
+  void set(int i, int v);
+}
+
+// to hold ints in an ordinary array on the heap
+class HeapIntArray implements IntArray {
+  int[] values;
+
+  HeapIntArray(int[] values) {
+    this.values = values;
   }
 
-  // test the compare method for edges
-  boolean testCompare(Tester t) {
-    init();
-    return t.checkExpect(edgeComp.compare(e12, e36) < 0, true)
-        && t.checkExpect(edgeComp.compare(e36, e23) > 0, true)
-        && t.checkExpect(edgeComp.compare(e12, e12) == 0, true);
+  public int length() {
+    return this.values.length;
   }
 
-  // test the toString method for nodes
-  void testToString(Tester t) {
-    init();
-    t.checkExpect(n1.toString(), "0x0y");
-    t.checkExpect(n2.toString(), "1x0y");
-    t.checkExpect(n3.toString(), "2x0y");
+  public int get(int i) {
+    return this.values[i];
   }
 
-  // test the isStart and isTarget method for nodes
-  void testIsStartIsTarget(Tester t) {
-    init();
-    t.checkExpect(n1.isStart(), true);
-    t.checkExpect(n2.isStart(), false);
-    t.checkExpect(n10.isTarget(), true);
-    t.checkExpect(n1.isTarget(), false);
+  public void set(int i, int v) {
+    this.values[i] = v;
   }
+}
 
-  // test the getNeighbors method for nodes
-  void testGetNeighbors(Tester t) {
-    init();
-    ArrayList<Node> nodeList = new ArrayList<Node>();
-    t.checkExpect(n1.getNeighbors(), nodeList);
+// to represent a disjoint-set forest over the ints 0 to n - 1
+class UnionFind {
+  // parent of each element, roots are their own parent
+  IntArray parent;
+  // number of elements below each root
+  IntArray size;
+  // number of separate trees
+  int trees;
 
-    MazeUtils.connect(e12);
-    nodeList.add(n2);
-    t.checkExpect(n1.getNeighbors(), nodeList);
+  UnionFind(int n) {
+    this(new HeapIntArray(new int[n]), new HeapIntArray(new int[n]), n);
   }
 
-  // test the getScore method for players
-  void testGetScore(Tester t) {
-    init();
-    t.checkExpect(p1.getScore(), "You made 0 wrong moves");
-    MazeUtils.connect(e12);
-    // empty arraylist means it must be a wrong move
-    p1.moveRight(new ArrayList<Node>());
-    t.checkExpect(p1.getScore(), "You made 1 wrong moves");
+  // a forest kept in the given arrays, such as ones off the heap
+  UnionFind(IntArray parent, IntArray size, int n) {
+    this.parent = parent;
+    this.size = size;
+    this.reset(n);
   }
 
-  // test the getStart method
-  void testGetStart(Tester t) {
-    init();
-    t.checkExpect(MazeUtils.getStart(nodeList), n1);
+  // make every one of the first n elements its own tree again, growing the
+  // arrays on the heap only if they are too small
+  void reset(int n) {
+    if (this.parent.length() < n) {
+      this.parent = new HeapIntArray(new int[n]);
+      this.size = new HeapIntArray(new int[n]);
+    }
+    for (int i = 0; i < n; i++) {
+      this.parent.set(i, i);
+      this.size.set(i, 1);
+    }
+    this.trees = n;
   }
 
-  // test the sort method
-  void testSort(Tester t) {
-    init();
-    ArrayList<Edge> testList = new ArrayList<Edge>(Arrays.asList(e23, e12, e56));
-    MazeUtils.sort(testList);
-    ArrayList<Edge> sortedList = new ArrayList<Edge>(Arrays.asList(e12, e56, e23));
-    t.checkExpect(testList, sortedList);
+  // get the root of the tree given element is in, halving the path on the way
+  int find(int i) {
+    int p = this.parent.get(i);
+    while (p != i) {
+      int g = this.parent.get(p);
+      this.parent.set(i, g);
+      i = g;
+      p = this.parent.get(i);
+    }
+    return i;
   }
 
-  // test the onTick method
-  void testOnTick(Tester t) {
-    // test the breadth-first portion
-    init();
-    initMW();
-    mw.onTick();
-    t.checkExpect(mw.breadthFirstWorkList.size(), 0);
-    // sets the tickSearch field to "bfs" and
-    // adds the start node to the worklist
-    mw.onKeyEvent("b");
+  // join the trees holding a and b, returning false if they were already one tree
+  boolean union(int a, int b) {
+    int ra = this.find(a);
+    int rb = this.find(b);
+    if (ra == rb) {
+      return false;
+    }
+    if (this.size.get(ra) < this.size.get(rb)) {
+      int tmp = ra;
+      ra = rb;
+      rb = tmp;
+    }
+    this.parent.set(rb, ra);
+    this.size.set(ra, this.size.get(ra) + this.size.get(rb));
+    this.trees--;
+    return true;
+  }
+}
+
+// to read and carve a maze without knowing where it is kept: cells joined
+// by numbered edges, each an open passage or a wall, with the cells laid out
+// on a grid for drawing. GraphSearch.breadthFirst, GraphMaze.kruskal and
+// MazeImageExporter run over it, so a GraphMaze on the heap and an
+// OffHeapMaze off it share them
+interface MazeAccess {
+  // number of cells and of edges
+  int cellCount();
+
+  int edgeCount();
+
+  // the two cells joined by edge e
+  int edgeA(int e);
+
+  int edgeB(int e);
+
+  // cell c's neighbors are in slots firstSlot(c) up to but not including
+  // endSlot(c), each with the neighbor it leads to and the edge to it; what
+  // the slot numbers mean is up to the maze
+  int firstSlot(int c);
+
+  int endSlot(int c);
+
+  int slotTarget(int c, int s);
+
+  int slotEdge(int c, int s);
+
+  // is edge e an open passage?
+  boolean isOpen(int e);
+
+  // make edge e an open passage
+  void openEdge(int e);
+
+  // is there an open passage between cells a and b?
+  boolean isPassage(int a, int b);
+
+  // size of the layout the cells are drawn in, and the cell at a place in it
+  int width();
+
+  int height();
+
+  int cellAt(int x, int y);
+}
+
+// to represent a maze carved into a MazeGraph: one bit per edge of the graph,
+// set when that edge is an open passage rather than a wall
+class GraphMaze implements MazeAccess {
+  // the topology this maze is carved in
+  MazeGraph graph;
+  // open passages, bit e of word e / 64 for edge e
+  long[] open;
+  // where the solver starts and where it must reach
+  int start;
+  int target;
+  // the cost of walking along each edge, or null if every passage costs 1
+  int[] costs = null;
+
+  // a maze with every edge of the given graph walled off
+  GraphMaze(MazeGraph graph) {
+    this.graph = graph;
+    this.open = new long[(graph.edgeCount() + 63) >>> 6];
+    this.start = graph.cellAt(0, 0);
+    this.target = graph.cellAt(graph.width - 1, graph.height - 1);
+  }
+
+  public int cellCount() {
+    return this.graph.cells;
+  }
+
+  public int edgeCount() {
+    return this.graph.edgeCount();
+  }
+
+  public int edgeA(int e) {
+    return this.graph.edgeA[e];
+  }
+
+  public int edgeB(int e) {
+    return this.graph.edgeB[e];
+  }
+
+  public int firstSlot(int c) {
+    return this.graph.offsets[c];
+  }
+
+  public int endSlot(int c) {
+    return this.graph.offsets[c + 1];
+  }
+
+  public int slotTarget(int c, int s) {
+    return this.graph.targets[s];
+  }
+
+  public int slotEdge(int c, int s) {
+    return this.graph.slotEdges[s];
+  }
+
+  public int width() {
+    return this.graph.width;
+  }
+
+  public int height() {
+    return this.graph.height;
+  }
+
+  public int cellAt(int x, int y) {
+    return this.graph.cellAt(x, y);
+  }
+
+  // is edge e an open passage?
+  public boolean isOpen(int e) {
+    return (this.open[e >>> 6] & (1L << e)) != 0;
+  }
+
+  // make edge e an open passage
+  public void openEdge(int e) {
+    this.open[e >>> 6] |= 1L << e;
+  }
+
+  // wall off edge e
+  void closeEdge(int e) {
+    this.open[e >>> 6] &= ~(1L << e);
+  }
+
+  // the number of open passages in this maze
+  int passageCount() {
+    int result = 0;
+    for (long w : this.open) {
+      result += Long.bitCount(w);
+    }
+    return result;
+  }
+
+  // the number of open passages leaving the given cell
+  int openDegree(int c) {
+    int result = 0;
+    for (int s = this.graph.offsets[c]; s < this.graph.offsets[c + 1]; s++) {
+      if (this.isOpen(this.graph.slotEdges[s])) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  // open the passage between neighboring cells a and b
+  void openPassage(int a, int b) {
+    for (int s = this.graph.offsets[a]; s < this.graph.offsets[a + 1]; s++) {
+      if (this.graph.targets[s] == b) {
+        this.openEdge(this.graph.slotEdges[s]);
+      }
+    }
+  }
+
+  // is there an open passage between cells a and b?
+  public boolean isPassage(int a, int b) {
+    for (int s = this.graph.offsets[a]; s < this.graph.offsets[a + 1]; s++) {
+      if (this.graph.targets[s] == b) {
+        return this.isOpen(this.graph.slotEdges[s]);
+      }
+    }
+    return false;
+  }
+
+  // carve a perfect maze into the given graph with Kruskal's algorithm,
+  // taking edges in order of increasing weight
+  static GraphMaze kruskal(MazeGraph graph, int[] weights) {
+    return GraphMaze.kruskal(new GraphMaze(graph), weights, new long[weights.length],
+        new UnionFind(graph.cells));
+  }
+
+  // carve a perfect maze into the given maze, walled off first, by the
+  // weights of its graph's edges at the front of weights, sorting them into
+  // order and joining cells in sets, which only grows if it is too small
+  static GraphMaze kruskal(GraphMaze into, int[] weights, long[] order, UnionFind sets) {
+    into.reset();
+    GraphMaze.sortByWeight(weights, into.graph.edgeCount(), order);
+    GraphMaze.kruskal(into, i -> (int) order[i], sets);
+    return into;
+  }
+
+  // carve a perfect maze into the given maze, walled off first, taking its
+  // edges in the order given by order, which is asked for place 0, 1, 2 and
+  // so on and no further than needed to join every cell
+  static void kruskal(MazeAccess into, java.util.function.IntUnaryOperator order,
+      UnionFind sets) {
+    sets.reset(into.cellCount());
+    for (int i = 0; i < into.edgeCount() && sets.trees > 1; i++) {
+      int e = order.applyAsInt(i);
+      if (sets.union(into.edgeA(e), into.edgeB(e))) {
+        into.openEdge(e);
+      }
+    }
+  }
+
+  // wall off every edge again and put the start and target back in the
+  // corners, for a graph that may have been laid out again smaller
+  void reset() {
+    Arrays.fill(this.open, 0);
+    this.start = this.graph.cellAt(0, 0);
+    this.target = this.graph.cellAt(this.graph.width - 1, this.graph.height - 1);
+  }
+
+  // carve a perfect maze into the given graph with random edge weights
+  static GraphMaze kruskal(MazeGraph graph, Random random) {
+    return GraphMaze.kruskal(graph, graph.randomWeights(random));
+  }
+
+  // a maze in a MazeGraph.grid with the same passages as the given world's nodes
+  static GraphMaze fromNodes(ArrayList<ArrayList<Node>> nodes) {
+    MazeGraph g = MazeGraph.grid(nodes.size(), nodes.get(0).size());
+    GraphMaze result = new GraphMaze(g);
+    for (int e = 0; e < g.edgeCount(); e++) {
+      Node a = nodes.get(g.cellX(g.edgeA[e])).get(g.cellY(g.edgeA[e]));
+      if (g.cellY(g.edgeB[e]) == a.y ? a.right instanceof Node : a.down instanceof Node) {
+        result.openEdge(e);
+      }
+    }
+    return result;
+  }
+
+  // carve a maze with loops: after Kruskal's algorithm has built a spanning
+  // tree, the given fraction of the edges it left out are opened too, lightest
+  // first. Each edge costs from 1 to maxCost to walk, scaled from its weight
+  // in [0, 1000000), so the shortcuts braiding adds tend to be the dear ones
+  static GraphMaze braided(MazeGraph graph, int[] weights, double fraction, int maxCost) {
+    GraphMaze result = new GraphMaze(graph);
+    long[] order = GraphMaze.sortByWeight(weights);
+    UnionFind sets = new UnionFind(graph.cells);
+    int[] leftOut = new int[graph.edgeCount()];
+    int leftOutCount = 0;
+    for (int i = 0; i < order.length; i++) {
+      int e = (int) order[i];
+      if (sets.union(graph.edgeA[e], graph.edgeB[e])) {
+        result.openEdge(e);
+      }
+      else {
+        leftOut[leftOutCount++] = e;
+      }
+    }
+    int extra = (int) Math.round(leftOutCount * Math.max(0, Math.min(1, fraction)));
+    for (int i = 0; i < extra; i++) {
+      result.openEdge(leftOut[i]);
+    }
+    result.costs = new int[graph.edgeCount()];
+    for (int e = 0; e < weights.length; e++) {
+      result.costs[e] = 1 + (int) Math.min(maxCost - 1, (long) weights[e] * maxCost / 1000000);
+    }
+    return result;
+  }
+
+  // the cost of walking along edge e
+  int cost(int e) {
+    return this.costs == null ? 1 : this.costs[e];
+  }
+
+  // edge ids ordered by weight then id, each packed below its weight in a long
+  // so the sort runs over primitives
+  static long[] sortByWeight(int[] weights) {
+    return GraphMaze.sortByWeight(weights, weights.length, new long[weights.length]);
+  }
+
+  // the first count edges sorted as above into the front of order
+  static long[] sortByWeight(int[] weights, int count, long[] order) {
+    for (int e = 0; e < count; e++) {
+      order[e] = ((long) weights[e] << 32) | e;
+    }
+    Arrays.sort(order, 0, count);
+    return order;
+  }
+}
+
+// to hold searches over the open passages of a GraphMaze
+class GraphSearch {
+  // find the path from one cell to another with breadth-first search,
+  // returning the cells from the end back to the start, or an empty array if
+  // there is none
+  static int[] breadthFirst(GraphMaze maze, int from, int to) {
+    int[] cameFrom = GraphSearch.unvisited(maze.graph.cells);
+    if (GraphSearch.breadthFirst(maze, from, to, cameFrom, new int[maze.graph.cells])) {
+      return GraphSearch.reconstruct(cameFrom, to);
+    }
+    return new int[0];
+  }
+
+  // search breadth-first from one cell until the other is reached, using the
+  // given queue of at least one entry per cell and leaving the cell each
+  // reached cell was reached from in cameFrom, whose entries must all start
+  // at -1; returns false if the target cannot be reached
+  static boolean breadthFirst(GraphMaze maze, int from, int to, int[] cameFrom, int[] queue) {
+    return GraphSearch.breadthFirst(maze, from, to, new HeapIntArray(cameFrom),
+        new HeapIntArray(queue));
+  }
+
+  // the same over any maze, with the queue and parents kept wherever it keeps them
+  static boolean breadthFirst(MazeAccess maze, int from, int to, IntArray cameFrom,
+      IntArray queue) {
+    int head = 0;
+    int tail = 0;
+    queue.set(tail++, from);
+    cameFrom.set(from, from);
+    while (head < tail) {
+      int next = queue.get(head++);
+      if (next == to) {
+        return true;
+      }
+      for (int s = maze.firstSlot(next); s < maze.endSlot(next); s++) {
+        int n = maze.slotTarget(next, s);
+        if (cameFrom.get(n) < 0 && maze.isOpen(maze.slotEdge(next, s))) {
+          cameFrom.set(n, next);
+          queue.set(tail++, n);
+        }
+      }
+    }
+    return false;
+  }
+
+  // find the path from one cell to another with depth-first search,
+  // returning the cells from the end back to the start, or an empty array if
+  // there is none
+  static int[] depthFirst(GraphMaze maze, int from, int to) {
+    MazeGraph g = maze.graph;
+    int[] cameFrom = GraphSearch.unvisited(g.cells);
+    // every cell is pushed at most once, so the stack never holds more than all cells
+    int[] stack = new int[g.cells];
+    int top = 0;
+    stack[top++] = from;
+    cameFrom[from] = from;
+    while (top > 0) {
+      int next = stack[--top];
+      if (next == to) {
+        return GraphSearch.reconstruct(cameFrom, to);
+      }
+      for (int s = g.offsets[next]; s < g.offsets[next + 1]; s++) {
+        int n = g.targets[s];
+        if (cameFrom[n] < 0 && maze.isOpen(g.slotEdges[s])) {
+          cameFrom[n] = next;
+          stack[top++] = n;
+        }
+      }
+    }
+    return new int[0];
+  }
+
+  // an array of n entries all marked as not yet reached
+  static int[] unvisited(int n) {
+    int[] result = new int[n];
+    Arrays.fill(result, -1);
+    return result;
+  }
+
+  // return the cells from n back to the start through the given parent links,
+  // where the start is the cell that is its own parent
+  static int[] reconstruct(int[] cameFrom, int n) {
+    int length = 1;
+    for (int c = n; cameFrom[c] != c; c = cameFrom[c]) {
+      length++;
+    }
+    int[] result = new int[length];
+    int c = n;
+    for (int i = 0; i < length - 1; i++) {
+      result[i] = c;
+      c = cameFrom[c];
+    }
+    result[length - 1] = c;
+    return result;
+  }
+
+  // write the cells from n back to the start into the front of path,
+  // returning how many there are
+  static int reconstruct(int[] cameFrom, int n, int[] path) {
+    int length = 0;
+    int c = n;
+    for (; cameFrom[c] != c; c = cameFrom[c]) {
+      path[length++] = c;
+    }
+    path[length++] = c;
+    return length;
+  }
+}
+
+// to search a GraphMaze one whole level at a time across a fork-join pool,
+// keeping the visited cells and the frontiers as bitmaps of one bit per cell.
+// Small frontiers are pushed out top-down from the frontier cells; once the
+// frontier's edges outweigh the unexplored ones the search flips to bottom-up,
+// where every unvisited cell looks for a parent in the frontier instead
+class ParallelBfs {
+  // atomic access to single words of a bitmap
+  static final java.lang.invoke.VarHandle WORDS =
+      java.lang.invoke.MethodHandles.arrayElementVarHandle(long[].class);
+  // number of bitmap words a single task handles before it stops splitting
+  static final int GRAIN = 64;
+
+  // the maze being searched
+  GraphMaze maze;
+  // the pool the frontier steps run on
+  java.util.concurrent.ForkJoinPool pool;
+  // the cell each reached cell was reached from, -1 if not yet reached
+  int[] cameFrom;
+  // one bit per cell: reached so far, in the current level, in the next level
+  long[] visited;
+  long[] frontier;
+  long[] next;
+  // go bottom-up once the frontier has more than 1 / alpha of the unexplored edges
+  int alpha = 14;
+  // go back top-down once the frontier holds fewer than 1 / beta of the cells
+  int beta = 24;
+  // number of levels expanded by the last search, and how many went bottom-up
+  int levels;
+  int bottomUpLevels;
+
+  ParallelBfs(GraphMaze maze, java.util.concurrent.ForkJoinPool pool) {
+    this.maze = maze;
+    this.pool = pool;
+    int words = (maze.graph.cells + 63) >>> 6;
+    this.cameFrom = new int[maze.graph.cells];
+    this.visited = new long[words];
+    this.frontier = new long[words];
+    this.next = new long[words];
+  }
+
+  ParallelBfs(GraphMaze maze) {
+    this(maze, java.util.concurrent.ForkJoinPool.commonPool());
+  }
+
+  // find the shortest path from one cell to another, returning the cells from
+  // the end back to the start, or an empty array if there is none
+  int[] solve(int from, int to) {
+    this.search(from, to);
+    if (this.cameFrom[to] < 0) {
+      return new int[0];
+    }
+    return GraphSearch.reconstruct(this.cameFrom, to);
+  }
+
+  // expand levels out from the given cell until the target has been reached
+  // or nothing new can be reached
+  void search(int from, int to) {
+    MazeGraph g = this.maze.graph;
+    Arrays.fill(this.cameFrom, -1);
+    Arrays.fill(this.visited, 0);
+    Arrays.fill(this.frontier, 0);
+    this.cameFrom[from] = from;
+    ParallelBfs.set(this.visited, from);
+    ParallelBfs.set(this.frontier, from);
+    this.levels = 0;
+    this.bottomUpLevels = 0;
+
+    boolean bottomUp = false;
+    long frontierCells = 1;
+    long frontierEdges = g.degree(from);
+    long unexploredEdges = g.edgeCount() * 2L - frontierEdges;
+    while (frontierCells > 0 && !ParallelBfs.get(this.visited, to)) {
+      if (!bottomUp && frontierEdges > unexploredEdges / this.alpha) {
+        bottomUp = true;
+      }
+      else if (bottomUp && frontierCells < g.cells / this.beta) {
+        bottomUp = false;
+      }
+      if (!bottomUp) {
+        Arrays.fill(this.next, 0);
+      }
+      BfsStep step = new BfsStep(this, 0, this.visited.length, bottomUp);
+      this.pool.invoke(step);
+
+      long[] tmp = this.frontier;
+      this.frontier = this.next;
+      this.next = tmp;
+      frontierCells = step.cells;
+      frontierEdges = step.edges;
+      unexploredEdges -= frontierEdges;
+      this.levels++;
+      if (bottomUp) {
+        this.bottomUpLevels++;
+      }
+    }
+  }
+
+  // push the frontier cells in words lo to hi out to their unvisited
+  // neighbors, claiming each neighbor with an atomic or on its visited word
+  void topDown(int lo, int hi, BfsStep counts) {
+    MazeGraph g = this.maze.graph;
+    for (int w = lo; w < hi; w++) {
+      long bits = this.frontier[w];
+      while (bits != 0) {
+        int u = (w << 6) + Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;
+        for (int s = g.offsets[u]; s < g.offsets[u + 1]; s++) {
+          int v = g.targets[s];
+          long bit = 1L << v;
+          if (this.maze.isOpen(g.slotEdges[s])
+              && ((long) WORDS.getOpaque(this.visited, v >>> 6) & bit) == 0
+              && ((long) WORDS.getAndBitwiseOr(this.visited, v >>> 6, bit) & bit) == 0) {
+            this.cameFrom[v] = u;
+            WORDS.getAndBitwiseOr(this.next, v >>> 6, bit);
+            counts.cells++;
+            counts.edges += g.degree(v);
+          }
+        }
+      }
+    }
+  }
+
+  // let every unvisited cell in words lo to hi look for a neighbor in the
+  // frontier; each word is owned by one task, so no atomics are needed
+  void bottomUp(int lo, int hi, BfsStep counts) {
+    MazeGraph g = this.maze.graph;
+    for (int w = lo; w < hi; w++) {
+      long bits = ~this.visited[w];
+      if (w == this.visited.length - 1 && (g.cells & 63) != 0) {
+        bits &= (1L << g.cells) - 1;
+      }
+      long found = 0;
+      while (bits != 0) {
+        int v = (w << 6) + Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;
+        for (int s = g.offsets[v]; s < g.offsets[v + 1]; s++) {
+          int u = g.targets[s];
+          if (ParallelBfs.get(this.frontier, u) && this.maze.isOpen(g.slotEdges[s])) {
+            this.cameFrom[v] = u;
+            found |= 1L << v;
+            counts.cells++;
+            counts.edges += g.degree(v);
+            break;
+          }
+        }
+      }
+      this.visited[w] |= found;
+      this.next[w] = found;
+    }
+  }
+
+  // is bit i of the given bitmap set?
+  static boolean get(long[] bits, int i) {
+    return (bits[i >>> 6] & (1L << i)) != 0;
+  }
+
+  // set bit i of the given bitmap
+  static void set(long[] bits, int i) {
+    bits[i >>> 6] |= 1L << i;
+  }
+}
+
+// to expand one level of a ParallelBfs over a range of bitmap words,
+// splitting the range in half until it is small enough to run directly
+class BfsStep extends java.util.concurrent.RecursiveAction {
+  private static final long serialVersionUID = 1L;
+
+  // the search this step belongs to
+  ParallelBfs bfs;
+  // the bitmap words this step covers
+  int lo;
+  int hi;
+  // which direction to expand in
+  boolean bottomUp;
+  // number of cells added to the next frontier and the sum of their degrees
+  long cells = 0;
+  long edges = 0;
+
+  BfsStep(ParallelBfs bfs, int lo, int hi, boolean bottomUp) {
+    this.bfs = bfs;
+    this.lo = lo;
+    this.hi = hi;
+    this.bottomUp = bottomUp;
+  }
+
+  // expand this step's words, in parallel halves if there are many
+  protected void compute() {
+    if (this.hi - this.lo <= ParallelBfs.GRAIN) {
+      if (this.bottomUp) {
+        this.bfs.bottomUp(this.lo, this.hi, this);
+      }
+      else {
+        this.bfs.topDown(this.lo, this.hi, this);
+      }
+    }
+    else {
+      int mid = (this.lo + this.hi) >>> 1;
+      BfsStep left = new BfsStep(this.bfs, this.lo, mid, this.bottomUp);
+      BfsStep right = new BfsStep(this.bfs, mid, this.hi, this.bottomUp);
+      invokeAll(left, right);
+      this.cells = left.cells + right.cells;
+      this.edges = left.edges + right.edges;
+    }
+  }
+}
+
+// to fill the dead ends of a whole row of a DeadEndFiller in one pass, so a
+// version working on several words at once can be swapped in where the JVM
+// has one
+interface DeadEndKernel {
+  // fill every dead end of row y found from the bitplanes as they are
+  void sweepRow(DeadEndFiller filler, int y);
+}
+
+// to solve a perfect grid maze by dead-end filling: every cell other than the
+// start and target with at most one passage to an unfilled neighbor is filled,
+// until only the solution corridor is left. Walls and filled cells are kept as
+// bitplanes, one bit per cell packed into rows of longs, so each step works on
+// 64 cells of a row at a time
+class DeadEndFiller {
+  // sweeps rows a vector of words at a time with the incubating Vector API,
+  // or null where DeadEndVectors was not built or jdk.incubator.vector is not
+  // in this JVM, leaving the scalar sweep
+  static final DeadEndKernel VECTORS = DeadEndFiller.loadVectors();
+
+  // size of the maze in cells
+  int width;
+  int height;
+  // longs in each bitplane row
+  int wordsPerRow;
+  // is there a passage from each cell to the cell on its right?
+  long[] east;
+  // is there a passage from each cell to the cell below it?
+  long[] south;
+  // has each cell been filled in?
+  long[] filled;
+  // how the first sweep fills rows, null for one word at a time
+  DeadEndKernel vectors = VECTORS;
+
+  // the Vector API sweep, if it can be loaded here
+  static DeadEndKernel loadVectors() {
+    try {
+      return (DeadEndKernel) Class.forName("DeadEndVectors").getDeclaredConstructor()
+          .newInstance();
+    }
+    catch (ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+
+  // a grid of the given size with every passage walled off
+  DeadEndFiller(int width, int height) {
+    MazeGraph.checkSize(width, height);
+    this.width = width;
+    this.height = height;
+    this.wordsPerRow = (width + 63) >>> 6;
+    this.east = new long[this.wordsPerRow * height];
+    this.south = new long[this.wordsPerRow * height];
+    this.filled = new long[this.wordsPerRow * height];
+  }
+
+  // the bitplanes of a maze carved into a MazeGraph.grid
+  static DeadEndFiller fromMaze(GraphMaze maze) {
+    MazeGraph g = maze.graph;
+    DeadEndFiller result = new DeadEndFiller(g.width, g.height);
+    for (int e = 0; e < g.edgeCount(); e++) {
+      int a = Math.min(g.edgeA[e], g.edgeB[e]);
+      int b = Math.max(g.edgeA[e], g.edgeB[e]);
+      int dx = g.cellX(b) - g.cellX(a);
+      int dy = g.cellY(b) - g.cellY(a);
+      if (Math.abs(dx) + Math.abs(dy) != 1) {
+        throw new IllegalArgumentException("Edge " + a + "-" + b + " is not part of a grid");
+      }
+      if (maze.isOpen(e)) {
+        int x = Math.min(g.cellX(a), g.cellX(b));
+        int y = Math.min(g.cellY(a), g.cellY(b));
+        if (dy == 0) {
+          result.openEast(x, y);
+        }
+        else {
+          result.openSouth(x, y);
+        }
+      }
+    }
+    return result;
+  }
+
+  // the bitplanes of the given world's nodes
+  static DeadEndFiller fromNodes(ArrayList<ArrayList<Node>> nodes) {
+    DeadEndFiller result = new DeadEndFiller(nodes.size(), nodes.get(0).size());
+    for (ArrayList<Node> l : nodes) {
+      for (Node n : l) {
+        if (n.right instanceof Node) {
+          result.openEast(n.x, n.y);
+        }
+        if (n.down instanceof Node) {
+          result.openSouth(n.x, n.y);
+        }
+      }
+    }
+    return result;
+  }
+
+  // open the passage to the right of the given cell
+  void openEast(int x, int y) {
+    this.east[y * this.wordsPerRow + (x >>> 6)] |= 1L << x;
+  }
+
+  // open the passage below the given cell
+  void openSouth(int x, int y) {
+    this.south[y * this.wordsPerRow + (x >>> 6)] |= 1L << x;
+  }
+
+  // has the given cell been filled in?
+  boolean isFilled(int x, int y) {
+    return (this.filled[y * this.wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+  }
+
+  // fill dead ends until none are left: one sweep down every row, then only
+  // the words next to something just filled, taken from a worklist, so a
+  // long winding dead end costs its length rather than a sweep of the whole
+  // grid for every turn; returns the number of words looked at after the sweep
+  int fill() {
+    for (int y = 0; y < this.height; y++) {
+      if (this.vectors == null) {
+        this.sweepRow(y);
+      }
+      else {
+        this.vectors.sweepRow(this, y);
+      }
+    }
+    int words = this.wordsPerRow * this.height;
+    // a ring of the words waiting, each in it at most once
+    int[] queue = new int[words];
+    long[] queued = new long[(words + 63) >>> 6];
+    for (int w = 0; w < words; w++) {
+      queue[w] = w;
+      ParallelBfs.set(queued, w);
+    }
+    int head = 0;
+    int waiting = words;
+    int visits = 0;
+    while (waiting > 0) {
+      int w = queue[head];
+      head = head + 1 == words ? 0 : head + 1;
+      waiting--;
+      queued[w >>> 6] &= ~(1L << w);
+      visits++;
+      int y = w / this.wordsPerRow;
+      int i = w % this.wordsPerRow;
+      // drain the word's own corridors before waking its neighbors
+      long filledNow = 0;
+      for (long dead = this.deadEnds(y, i); dead != 0; dead = this.deadEnds(y, i)) {
+        this.filled[w] |= dead;
+        filledNow |= dead;
+      }
+      if (filledNow == 0) {
+        continue;
+      }
+      int[] next = { (filledNow & 1) != 0 && i > 0 ? w - 1 : -1,
+          filledNow < 0 && i + 1 < this.wordsPerRow ? w + 1 : -1,
+          y > 0 ? w - this.wordsPerRow : -1, y < this.height - 1 ? w + this.wordsPerRow : -1 };
+      for (int n : next) {
+        if (n >= 0 && !ParallelBfs.get(queued, n)) {
+          ParallelBfs.set(queued, n);
+          queue[(head + waiting) % words] = n;
+          waiting++;
+        }
+      }
+    }
+    return visits;
+  }
+
+  // fill the dead ends of row y one word at a time
+  void sweepRow(int y) {
+    for (int i = 0; i < this.wordsPerRow; i++) {
+      this.filled[y * this.wordsPerRow + i] |= this.deadEnds(y, i);
+    }
+  }
+
+  // the unfilled cells in word i of row y with fewer than two passages to
+  // unfilled neighbors, leaving out the start and the target
+  long deadEnds(int y, int i) {
+    int row = y * this.wordsPerRow;
+    long f = this.filled[row + i];
+    long fRight = f >>> 1;
+    long fLeft = f << 1;
+    long eLeft = this.east[row + i] << 1;
+    if (i + 1 < this.wordsPerRow) {
+      fRight |= this.filled[row + i + 1] << 63;
+    }
+    if (i > 0) {
+      fLeft |= this.filled[row + i - 1] >>> 63;
+      eLeft |= this.east[row + i - 1] >>> 63;
+    }
+    long e = this.east[row + i] & ~fRight;
+    long w = eLeft & ~fLeft;
+    long n = 0;
+    long s = 0;
+    if (y > 0) {
+      n = this.south[row - this.wordsPerRow + i] & ~this.filled[row - this.wordsPerRow + i];
+    }
+    if (y < this.height - 1) {
+      s = this.south[row + i] & ~this.filled[row + this.wordsPerRow + i];
+    }
+    // cells with at least two of the four passages left
+    long twoOrMore = (e & w) | (n & s) | ((e ^ w) & (n ^ s));
+    long candidates = ~f & ~twoOrMore & this.validMask(i);
+    if (y == 0 && i == 0) {
+      candidates &= ~1L;
+    }
+    if (y == this.height - 1 && i == this.wordsPerRow - 1) {
+      candidates &= ~(1L << (this.width - 1));
+    }
+    return candidates;
+  }
+
+  // the bits of word i in a row that stand for real cells
+  long validMask(int i) {
+    int used = this.width - (i << 6);
+    return used >= 64 ? -1L : (1L << used) - 1;
+  }
+
+  // the number of cells left unfilled
+  int survivors() {
+    int result = 0;
+    for (int y = 0; y < this.height; y++) {
+      for (int i = 0; i < this.wordsPerRow; i++) {
+        result += Long.bitCount(~this.filled[y * this.wordsPerRow + i] & this.validMask(i));
+      }
+    }
+    return result;
+  }
+
+  // fill the maze, then follow the surviving corridor from the target back to
+  // the start; returns the cell ids (y * width + x) along it, or an empty
+  // array if the corridor does not end at the start, as when the maze is not
+  // perfect and loops survive the filling or the target is walled off
+  int[] solve() {
+    this.fill();
+    int[] result = new int[this.survivors()];
+    int prev = -1;
+    int c = this.width * this.height - 1;
+    for (int i = 0; i < result.length; i++) {
+      if (c < 0) {
+        return new int[0];
+      }
+      result[i] = c;
+      int next = this.nextInCorridor(c, prev);
+      prev = c;
+      c = next;
+    }
+    return result[result.length - 1] == 0 ? result : new int[0];
+  }
+
+  // the unfilled neighbor of cell c reached through an open passage, other
+  // than prev, or -1 if there is none
+  int nextInCorridor(int c, int prev) {
+    int x = c % this.width;
+    int y = c / this.width;
+    int row = y * this.wordsPerRow + (x >>> 6);
+    long bit = 1L << x;
+    if (x < this.width - 1 && (this.east[row] & bit) != 0 && c + 1 != prev
+        && !this.isFilled(x + 1, y)) {
+      return c + 1;
+    }
+    if (x > 0 && (this.east[y * this.wordsPerRow + ((x - 1) >>> 6)] & (1L << (x - 1))) != 0
+        && c - 1 != prev && !this.isFilled(x - 1, y)) {
+      return c - 1;
+    }
+    if (y < this.height - 1 && (this.south[row] & bit) != 0 && c + this.width != prev
+        && !this.isFilled(x, y + 1)) {
+      return c + this.width;
+    }
+    if (y > 0 && (this.south[row - this.wordsPerRow] & bit) != 0 && c - this.width != prev
+        && !this.isFilled(x, y - 1)) {
+      return c - this.width;
+    }
+    return -1;
+  }
+}
+
+// to check that a grid maze is perfect: every cell is reachable and there are no
+// loops. Rows of east and south passages are fed in from top to bottom and only
+// the component labels of the previous row are kept, so a maze is checked in
+// time linear in its cells with memory linear in its width
+class MazeValidator {
+  // size of the maze in cells
+  int width;
+  int height;
+  // number of rows fed in so far
+  int row = 0;
+  // number of passages seen so far
+  long passages = 0;
+  // the first problem found, or null if there is none yet
+  String problem = null;
+  // the previous row's components are 0 to width - 1, this row's cells come after
+  UnionFind sets;
+  // the component of each cell in the previous row
+  int[] labels;
+  // maps a root in sets to its component in the row just finished
+  int[] remap;
+  // passages down from the previous row
+  long[] prevSouth;
+
+  MazeValidator(int width, int height) {
+    MazeGraph.checkSize(width, height);
+    this.width = width;
+    this.height = height;
+    this.sets = new UnionFind(2 * width);
+    this.labels = new int[width];
+    this.remap = new int[2 * width];
+    this.prevSouth = new long[(width + 63) >>> 6];
+  }
+
+  // take in the next row, given as its passages to the right and down packed
+  // 64 cells to a long; returns false once a problem has been found
+  boolean acceptRow(long[] east, long[] south) {
+    if (this.problem != null) {
+      return false;
+    }
+    if (this.row == this.height) {
+      return this.fail("more than " + this.height + " rows");
+    }
+    int w = this.width;
+    this.sets.reset(2 * w);
+    for (int x = 0; x < w; x++) {
+      int c = w + x;
+      if (this.row > 0 && MazeValidator.bit(this.prevSouth, x)) {
+        this.passages++;
+        if (!this.sets.union(this.labels[x], c)) {
+          return this.fail("loop closed by the passage above " + x + "x" + this.row + "y");
+        }
+      }
+      if (MazeValidator.bit(east, x)) {
+        if (x == w - 1) {
+          return this.fail("passage through the right border at " + x + "x" + this.row + "y");
+        }
+        this.passages++;
+        if (!this.sets.union(c, c + 1)) {
+          return this.fail("loop closed by the passage right of " + x + "x" + this.row + "y");
+        }
+      }
+      if (this.row == this.height - 1 && MazeValidator.bit(south, x)) {
+        return this.fail("passage through the bottom border at " + x + "x" + this.row + "y");
+      }
+    }
+    // number this row's components from 0 for the next row to join onto
+    Arrays.fill(this.remap, -1);
+    int next = 0;
+    for (int x = 0; x < w; x++) {
+      int root = this.sets.find(w + x);
+      if (this.remap[root] < 0) {
+        this.remap[root] = next++;
+      }
+      this.labels[x] = this.remap[root];
+    }
+    System.arraycopy(south, 0, this.prevSouth, 0, this.prevSouth.length);
+    this.row++;
+    return true;
+  }
+
+  // check the maze once every row is in: with no loops, it is connected
+  // exactly when it has one passage fewer than it has cells
+  boolean finish() {
+    if (this.problem != null) {
+      return false;
+    }
+    if (this.row != this.height) {
+      return this.fail("only " + this.row + " of " + this.height + " rows");
+    }
+    long cells = (long) this.width * this.height;
+    if (this.passages != cells - 1) {
+      return this.fail("not connected: " + this.passages + " passages for " + cells + " cells");
+    }
+    return true;
+  }
+
+  // record the given problem and return false
+  boolean fail(String problem) {
+    this.problem = problem;
+    return false;
+  }
+
+  // is bit i of the given packed row set?
+  static boolean bit(long[] bits, int i) {
+    return (bits[i >>> 6] & (1L << i)) != 0;
+  }
+
+  // the problem with the given world's maze, or null if it is perfect and its
+  // nodes are linked exactly through the given edges
+  static String problemWith(ArrayList<ArrayList<Node>> nodes, ArrayList<Edge> edges) {
+    int width = nodes.size();
+    int height = nodes.get(0).size();
+    int links = 0;
+    for (ArrayList<Node> l : nodes) {
+      for (Node n : l) {
+        if (n.right instanceof Node) {
+          if (n.x == width - 1 || n.right != nodes.get(n.x + 1).get(n.y) || n.right.left != n) {
+            return "bad link right of " + n;
+          }
+          links++;
+        }
+        if (n.down instanceof Node) {
+          if (n.y == height - 1 || n.down != nodes.get(n.x).get(n.y + 1) || n.down.up != n) {
+            return "bad link below " + n;
+          }
+          links++;
+        }
+        if ((n.left instanceof Node && n.left.right != n) || (n.up instanceof Node && n.up.down != n)) {
+          return "one-way link at " + n;
+        }
+      }
+    }
+    for (Edge e : edges) {
+      if (!(e.a.getNeighbors().contains(e.b))) {
+        return "edge " + e.a + "-" + e.b + " is walled off";
+      }
+    }
+    if (links != edges.size()) {
+      return links + " links for " + edges.size() + " edges";
+    }
+
+    MazeValidator v = new MazeValidator(width, height);
+    long[] east = new long[v.prevSouth.length];
+    long[] south = new long[v.prevSouth.length];
+    for (int y = 0; y < height; y++) {
+      Arrays.fill(east, 0);
+      Arrays.fill(south, 0);
+      for (int x = 0; x < width; x++) {
+        Node n = nodes.get(x).get(y);
+        if (n.right instanceof Node) {
+          east[x >>> 6] |= 1L << x;
+        }
+        if (n.down instanceof Node) {
+          south[x >>> 6] |= 1L << x;
+        }
+      }
+      v.acceptRow(east, south);
+    }
+    v.finish();
+    return v.problem;
+  }
+
+  // the problem with the given maze in any topology, or null if it is perfect
+  static String problemWith(GraphMaze maze) {
+    MazeGraph g = maze.graph;
+    UnionFind sets = new UnionFind(g.cells);
+    for (int e = 0; e < g.edgeCount(); e++) {
+      if (maze.isOpen(e) && !sets.union(g.edgeA[e], g.edgeB[e])) {
+        return "loop closed by the passage " + g.edgeA[e] + "-" + g.edgeB[e];
+      }
+    }
+    if (sets.trees != 1) {
+      return "not connected: " + sets.trees + " separate parts";
+    }
+    return null;
+  }
+
+  // the problem with the maze file read from the given stream, or null if it
+  // is perfect; only one row of the file is held at a time
+  static String problemWith(java.io.DataInputStream in) throws java.io.IOException {
+    int width = in.readInt();
+    int height = in.readInt();
+    MazeValidator v = new MazeValidator(width, height);
+    long[] east = new long[v.prevSouth.length];
+    long[] south = new long[v.prevSouth.length];
+    for (int y = 0; y < height && v.problem == null; y++) {
+      MazeFile.readRow(in, east, south);
+      v.acceptRow(east, south);
+    }
+    v.finish();
+    return v.problem;
+  }
+}
+
+// to read and write grid mazes as a stream of rows: the width and height as
+// ints, then for each row its passages to the right and then its passages down,
+// each packed 64 cells to a long
+class MazeFile {
+  // write the given maze, carved into a MazeGraph.grid, one row at a time
+  static void write(GraphMaze maze, java.io.DataOutputStream out) throws java.io.IOException {
+    MazeGraph g = maze.graph;
+    int words = (g.width + 63) >>> 6;
+    long[] east = new long[words];
+    long[] south = new long[words];
+    out.writeInt(g.width);
+    out.writeInt(g.height);
+    for (int y = 0; y < g.height; y++) {
+      Arrays.fill(east, 0);
+      Arrays.fill(south, 0);
+      for (int x = 0; x < g.width; x++) {
+        int c = g.cellAt(x, y);
+        for (int s = g.offsets[c]; s < g.offsets[c + 1]; s++) {
+          if (maze.isOpen(g.slotEdges[s])) {
+            if (x < g.width - 1 && g.targets[s] == g.cellAt(x + 1, y)) {
+              east[x >>> 6] |= 1L << x;
+            }
+            else if (y < g.height - 1 && g.targets[s] == g.cellAt(x, y + 1)) {
+              south[x >>> 6] |= 1L << x;
+            }
+          }
+        }
+      }
+      MazeFile.writeRow(out, east, south);
+    }
+  }
+
+  // write one row of passages
+  static void writeRow(java.io.DataOutputStream out, long[] east, long[] south)
+      throws java.io.IOException {
+    for (long w : east) {
+      out.writeLong(w);
+    }
+    for (long w : south) {
+      out.writeLong(w);
+    }
+  }
+
+  // read a whole maze written by write into a MazeGraph.grid
+  static GraphMaze read(java.io.DataInputStream in) throws java.io.IOException {
+    int width = in.readInt();
+    int height = in.readInt();
+    GraphMaze result = new GraphMaze(MazeGraph.grid(width, height));
+    long[] east = new long[(width + 63) >>> 6];
+    long[] south = new long[east.length];
+    for (int y = 0; y < height; y++) {
+      MazeFile.readRow(in, east, south);
+      for (int x = 0; x < width; x++) {
+        int c = result.graph.cellAt(x, y);
+        if (MazeValidator.bit(east, x) && x < width - 1) {
+          result.openPassage(c, result.graph.cellAt(x + 1, y));
+        }
+        if (MazeValidator.bit(south, x) && y < height - 1) {
+          result.openPassage(c, result.graph.cellAt(x, y + 1));
+        }
+      }
+    }
+    return result;
+  }
+
+  // read one row of passages into the given arrays
+  static void readRow(java.io.DataInputStream in, long[] east, long[] south)
+      throws java.io.IOException {
+    for (int i = 0; i < east.length; i++) {
+      east[i] = in.readLong();
+    }
+    for (int i = 0; i < south.length; i++) {
+      south[i] = in.readLong();
+    }
+  }
+}
+
+// to represent a min-heap of the ints 0 to n - 1 keyed by int priorities,
+// with 4 children per entry and a position index so that a queued id's
+// priority can be lowered in place
+class IndexedHeap {
+  // number of children of each heap entry
+  static final int ARITY = 4;
+
+  // the queued ids in heap order
+  int[] heap;
+  // where each id sits in heap, or -1 if it is not queued
+  int[] pos;
+  // the priority of each queued id
+  int[] prio;
+  // number of queued ids
+  int size = 0;
+
+  IndexedHeap(int n) {
+    this.heap = new int[n];
+    this.pos = new int[n];
+    this.prio = new int[n];
+    Arrays.fill(this.pos, -1);
+  }
+
+  // is nothing queued?
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // is the given id queued?
+  boolean contains(int id) {
+    return this.pos[id] >= 0;
+  }
+
+  // queue the given id, or lower its priority if it is already queued with a
+  // higher one
+  void push(int id, int priority) {
+    if (this.pos[id] < 0) {
+      this.heap[this.size] = id;
+      this.pos[id] = this.size;
+      this.prio[id] = priority;
+      this.siftUp(this.size++);
+    }
+    else if (priority < this.prio[id]) {
+      this.prio[id] = priority;
+      this.siftUp(this.pos[id]);
+    }
+  }
+
+  // remove and return the queued id with the lowest priority
+  int pop() {
+    int top = this.heap[0];
+    this.pos[top] = -1;
+    this.size--;
+    if (this.size > 0) {
+      int last = this.heap[this.size];
+      this.heap[0] = last;
+      this.pos[last] = 0;
+      this.siftDown(0);
+    }
+    return top;
+  }
+
+  // empty the heap, touching only the ids still queued
+  void clear() {
+    for (int i = 0; i < this.size; i++) {
+      this.pos[this.heap[i]] = -1;
+    }
+    this.size = 0;
+  }
+
+  // move the entry at index i up until its parent is no higher
+  void siftUp(int i) {
+    int id = this.heap[i];
+    int p = this.prio[id];
+    while (i > 0) {
+      int parent = (i - 1) / ARITY;
+      int pid = this.heap[parent];
+      if (this.prio[pid] <= p) {
+        break;
+      }
+      this.heap[i] = pid;
+      this.pos[pid] = i;
+      i = parent;
+    }
+    this.heap[i] = id;
+    this.pos[id] = i;
+  }
+
+  // move the entry at index i down until none of its children are lower
+  void siftDown(int i) {
+    int id = this.heap[i];
+    int p = this.prio[id];
+    while (true) {
+      int first = i * ARITY + 1;
+      if (first >= this.size) {
+        break;
+      }
+      int best = first;
+      int end = Math.min(first + ARITY, this.size);
+      for (int c = first + 1; c < end; c++) {
+        if (this.prio[this.heap[c]] < this.prio[this.heap[best]]) {
+          best = c;
+        }
+      }
+      int bid = this.heap[best];
+      if (this.prio[bid] >= p) {
+        break;
+      }
+      this.heap[i] = bid;
+      this.pos[bid] = i;
+      i = best;
+    }
+    this.heap[i] = id;
+    this.pos[id] = i;
+  }
+}
+
+// to find cheapest paths through a GraphMaze whose passages have costs,
+// keeping its buffers between searches
+class WeightedSearch {
+  // the maze being searched
+  GraphMaze maze;
+  // the cheapest known cost to reach each cell, Integer.MAX_VALUE if unreached
+  int[] dist;
+  // the cell each reached cell was reached from, -1 if unreached
+  int[] cameFrom;
+  // cells waiting to be settled, keyed by cost plus estimate
+  IndexedHeap open;
+  // number of cells settled by the last search
+  int settled;
+
+  WeightedSearch(GraphMaze maze) {
+    this.maze = maze;
+    this.dist = new int[maze.graph.cells];
+    this.cameFrom = new int[maze.graph.cells];
+    this.open = new IndexedHeap(maze.graph.cells);
+  }
+
+  // find the cheapest path with Dijkstra's algorithm, returning the cells from
+  // the end back to the start, or an empty array if there is none
+  int[] dijkstra(int from, int to) {
+    return this.search(from, to, 0);
+  }
+
+  // find the cheapest path with A*, guided by the fewest steps left times the
+  // cheapest passage; on layouts where edges can jump across the maze this
+  // estimate is not a lower bound, so it falls back to Dijkstra's algorithm
+  int[] aStar(int from, int to) {
+    int cheapest = Integer.MAX_VALUE;
+    if (this.maze.costs == null) {
+      cheapest = 1;
+    }
+    else {
+      for (int c : this.maze.costs) {
+        cheapest = Math.min(cheapest, c);
+      }
+    }
+    return this.search(from, to, this.maze.graph.local ? cheapest : 0);
+  }
+
+  // settle cells in order of cost plus stepCost times the steps still needed
+  // to reach the target, until the target is settled
+  int[] search(int from, int to, int stepCost) {
+    MazeGraph g = this.maze.graph;
+    Arrays.fill(this.dist, Integer.MAX_VALUE);
+    Arrays.fill(this.cameFrom, -1);
+    this.open.clear();
+    this.settled = 0;
+    int tx = g.cellX(to);
+    int ty = g.cellY(to);
+    this.dist[from] = 0;
+    this.cameFrom[from] = from;
+    this.open.push(from, 0);
+    while (!this.open.isEmpty()) {
+      int next = this.open.pop();
+      this.settled++;
+      if (next == to) {
+        return GraphSearch.reconstruct(this.cameFrom, to);
+      }
+      int d = this.dist[next];
+      for (int s = g.offsets[next]; s < g.offsets[next + 1]; s++) {
+        int e = g.slotEdges[s];
+        if (this.maze.isOpen(e)) {
+          int n = g.targets[s];
+          int nd = d + this.maze.cost(e);
+          if (nd < this.dist[n]) {
+            this.dist[n] = nd;
+            this.cameFrom[n] = next;
+            int steps = Math.max(Math.abs(g.cellX(n) - tx), Math.abs(g.cellY(n) - ty));
+            this.open.push(n, nd + stepCost * steps);
+          }
+        }
+      }
+    }
+    return new int[0];
+  }
+}
+
+// to hold a maze that has been generated and solved away from the world,
+// ready to be swapped in whole
+class PreparedMaze {
+  // the parts of the maze, as in MazeWorld
+  ArrayList<ArrayList<Node>> nodes;
+  ArrayList<Edge> allEdges;
+  ArrayList<Edge> edges;
+  ArrayList<Node> path;
+  // the settings this maze was made with
+  int bias;
+  double braid;
+
+  // generate and solve a maze the size of the world, giving up between steps
+  // if the running thread has been interrupted
+  PreparedMaze(Random random, int bias, double braid) {
+    this.bias = bias;
+    this.braid = braid;
+    this.nodes = MazeUtils.initializeNodes(MazeWorld.WORLDWIDTH, MazeWorld.WORLDHEIGHT);
+    PreparedMaze.checkCancelled();
+    this.allEdges = MazeUtils.initializeEdges(this.nodes, random, bias);
+    PreparedMaze.checkCancelled();
+    this.edges = MazeUtils.initializeMaze(this.nodes, this.allEdges, braid);
+    PreparedMaze.checkCancelled();
+    this.path = MazeUtils.findPath(this.nodes, braid);
+  }
+
+  // stop preparing if the running thread has been interrupted
+  static void checkCancelled() {
+    if (Thread.currentThread().isInterrupted()) {
+      throw new java.util.concurrent.CancellationException("Maze preparation was cancelled");
+    }
+  }
+}
+
+// to keep a bounded pool of mazes being generated and solved on background
+// threads, so that starting a new maze only has to swap in one that is ready
+class MazePrefetcher {
+  // how many mazes to keep ready or in the works
+  int capacity;
+  // the low priority background threads the mazes are made on
+  java.util.concurrent.ExecutorService workers;
+  // the mazes ready or in the works, oldest first
+  ArrayDeque<java.util.concurrent.Future<PreparedMaze>> pending =
+      new ArrayDeque<java.util.concurrent.Future<PreparedMaze>>();
+  // where each maze's own random seed comes from
+  Random seeds;
+  // the settings mazes are being made with, bias -1 before the first request
+  int bias = -1;
+  double braid = 0;
+
+  MazePrefetcher(int capacity, int threads, long seed) {
+    this.capacity = capacity;
+    this.seeds = new Random(seed);
+    java.util.concurrent.ThreadPoolExecutor pool = new java.util.concurrent.ThreadPoolExecutor(
+        threads, threads, 1, java.util.concurrent.TimeUnit.SECONDS,
+        new java.util.concurrent.LinkedBlockingQueue<Runnable>(), r -> {
+          Thread thread = new Thread(r, "maze-prefetch");
+          thread.setDaemon(true);
+          thread.setPriority(Thread.MIN_PRIORITY);
+          return thread;
+        });
+    // idle threads go away, so a full pool costs nothing while it waits
+    pool.allowCoreThreadTimeOut(true);
+    this.workers = pool;
+  }
+
+  // a pool using every core but one
+  MazePrefetcher(long seed) {
+    this(2, Math.max(1, Runtime.getRuntime().availableProcessors() - 1), seed);
+  }
+
+  // make mazes with the given settings from now on, throwing away any made
+  // with other settings
+  void configure(int bias, double braid) {
+    if (bias != this.bias || braid != this.braid) {
+      this.cancel();
+      this.bias = bias;
+      this.braid = braid;
+    }
+    this.refill();
+  }
+
+  // take a finished maze with the given settings, only making one on this
+  // thread if none has finished yet, and start making its replacement
+  PreparedMaze take(int bias, double braid) {
+    this.configure(bias, braid);
+    PreparedMaze result = null;
+    Iterator<java.util.concurrent.Future<PreparedMaze>> it = this.pending.iterator();
+    while (result == null && it.hasNext()) {
+      java.util.concurrent.Future<PreparedMaze> next = it.next();
+      if (next.isDone()) {
+        it.remove();
+        try {
+          result = next.get();
+        }
+        catch (java.util.concurrent.ExecutionException | InterruptedException
+            | java.util.concurrent.CancellationException e) {
+          // drop it and look for another
+        }
+      }
+    }
+    if (result == null) {
+      result = new PreparedMaze(new Random(this.seeds.nextLong()), bias, braid);
+    }
+    this.refill();
+    return result;
+  }
+
+  // the number of mazes ready to be taken
+  int readyCount() {
+    int result = 0;
+    for (java.util.concurrent.Future<PreparedMaze> f : this.pending) {
+      if (f.isDone() && !f.isCancelled()) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  // start making mazes until the pool is full
+  void refill() {
+    while (this.pending.size() < this.capacity) {
+      Random random = new Random(this.seeds.nextLong());
+      int bias = this.bias;
+      double braid = this.braid;
+      this.pending.add(this.workers.submit(() -> new PreparedMaze(random, bias, braid)));
+    }
+  }
+
+  // stop making and throw away every maze in the pool
+  void cancel() {
+    for (java.util.concurrent.Future<PreparedMaze> f : this.pending) {
+      f.cancel(true);
+    }
+    this.pending.clear();
+  }
+
+  // throw away the pool and stop its threads
+  void shutdown() {
+    this.cancel();
+    this.workers.shutdownNow();
+  }
+}
+
+// to choose the moves of one bot in a BotSwarm
+interface BotStrategy {
+  // the adjacency slot of the passage the given bot leaves its cell by,
+  // or -1 to stay put
+  int move(BotSwarm swarm, int agent);
+
+  // forget the last maze, ready for a new one in the given graph
+  void reset(MazeGraph graph);
+}
+
+// to move a bot through a random open passage each step
+class RandomWalk implements BotStrategy {
+  // this bot's own random stream
+  SplittableRandom random;
+
+  RandomWalk(long seed) {
+    this.random = new SplittableRandom(seed);
+  }
+
+  // pick any open passage out of the bot's cell
+  public int move(BotSwarm swarm, int agent) {
+    MazeGraph g = swarm.maze.graph;
+    int c = swarm.cells[agent];
+    int open = swarm.maze.openDegree(c);
+    if (open == 0) {
+      return -1;
+    }
+    int pick = this.random.nextInt(open);
+    for (int s = g.offsets[c]; s < g.offsets[c + 1]; s++) {
+      if (swarm.maze.isOpen(g.slotEdges[s]) && pick-- == 0) {
+        return s;
+      }
+    }
+    return -1;
+  }
+
+  // a random walker remembers nothing, so keeps its stream going
+  public void reset(MazeGraph graph) {
+  }
+}
+
+// to move a bot with one hand on the wall: it leaves each cell by the first
+// open passage after the one it came in by, going round the cell in the
+// swarm's turning order
+class WallFollower implements BotStrategy {
+  // take the next open passage round from the one the bot came in by
+  public int move(BotSwarm swarm, int agent) {
+    MazeGraph g = swarm.maze.graph;
+    int c = swarm.cells[agent];
+    int lo = g.offsets[c];
+    int n = g.offsets[c + 1] - lo;
+    int first = 0;
+    for (int k = 0; k < n; k++) {
+      if (g.targets[swarm.turnOrder[lo + k]] == swarm.cameFrom[agent]) {
+        first = k + 1;
+      }
+    }
+    for (int i = 0; i < n; i++) {
+      int s = swarm.turnOrder[lo + (first + i) % n];
+      if (swarm.maze.isOpen(g.slotEdges[s])) {
+        return s;
+      }
+    }
+    return -1;
+  }
+
+  // a wall follower remembers nothing
+  public void reset(MazeGraph graph) {
+  }
+}
+
+// to move a bot by Tremaux's rule: it counts how often it has walked each
+// passage, prefers passages it has never walked, turns back at junctions it
+// has seen before, and never walks a passage a third time
+class Tremaux implements BotStrategy {
+  // two bits per edge of the maze, the number of times this bot walked it
+  long[] marks;
+
+  Tremaux(MazeGraph graph) {
+    this.marks = new long[(graph.edgeCount() * 2 + 63) >>> 6];
+  }
+
+  // rub out every mark, growing them only for a graph with more edges
+  public void reset(MazeGraph graph) {
+    int words = (graph.edgeCount() * 2 + 63) >>> 6;
+    if (this.marks.length < words) {
+      this.marks = new long[words];
+    }
+    else {
+      Arrays.fill(this.marks, 0, words, 0);
+    }
+  }
+
+  // the number of times this bot has walked edge e, at most 2
+  int marks(int e) {
+    return (int) (this.marks[e >>> 5] >>> ((e & 31) * 2)) & 3;
+  }
+
+  // count one more walk along edge e
+  void mark(int e) {
+    if (this.marks(e) < 2) {
+      this.marks[e >>> 5] += 1L << ((e & 31) * 2);
+    }
+  }
+
+  // pick the next passage by Tremaux's rule and mark it
+  public int move(BotSwarm swarm, int agent) {
+    MazeGraph g = swarm.maze.graph;
+    int c = swarm.cells[agent];
+    int back = -1;
+    boolean seenBefore = false;
+    int fresh = -1;
+    int once = -1;
+    for (int s = g.offsets[c]; s < g.offsets[c + 1]; s++) {
+      int e = g.slotEdges[s];
+      if (swarm.maze.isOpen(e)) {
+        if (g.targets[s] == swarm.cameFrom[agent] && back < 0) {
+          back = s;
+        }
+        else if (this.marks(e) == 0) {
+          fresh = fresh < 0 ? s : fresh;
+        }
+        else {
+          seenBefore = true;
+          once = once < 0 && this.marks(e) == 1 ? s : once;
+        }
+      }
+    }
+    int result;
+    if (back >= 0 && seenBefore && this.marks(g.slotEdges[back]) == 1) {
+      result = back;
+    }
+    else if (fresh >= 0) {
+      result = fresh;
+    }
+    else if (back >= 0 && this.marks(g.slotEdges[back]) < 2) {
+      result = back;
+    }
+    else {
+      result = once;
+    }
+    if (result >= 0) {
+      this.mark(g.slotEdges[result]);
+    }
+    return result;
+  }
+}
+
+// to run many bots through one GraphMaze at once, each with its own strategy,
+// visited cells and score. Every step moves all bots once, in parallel
+// batches of bots on a fork-join pool
+class BotSwarm {
+  // number of bots each parallel task moves
+  static final int BATCH = 256;
+  // what a cell with bots in it is drawn with
+  static final WorldImage DOT = new CircleImage(3, "solid", new Color(204, 102, 0));
+
+  // the maze the bots are in
+  GraphMaze maze;
+  // the pool the batches run on
+  java.util.concurrent.ForkJoinPool pool;
+  // how each bot picks its moves
+  BotStrategy[] strategies;
+  // each bot's cell and the cell it was in before, -1 before its first move
+  int[] cells;
+  int[] cameFrom;
+  // each bot's moves, moves off the solution, and the step it reached the
+  // target on, -1 if it has not yet
+  int[] moves;
+  int[] wrongMoves;
+  int[] finishedAt;
+  // one bitset per bot of the cells it has been in, visitWords longs each
+  long[] visits;
+  int visitWords;
+  // the cells on the solution path
+  long[] solution;
+  // each cell's adjacency slots in the order a wall follower turns through them
+  int[] turnOrder;
+  // the cells already drawn this frame
+  long[] drawn = new long[0];
+  // steps run so far, bot moves made, and time spent stepping
+  int ticks = 0;
+  long totalMoves = 0;
+  long stepNanos = 0;
+
+  // bots all starting at the maze's start
+  BotSwarm(GraphMaze maze, BotStrategy[] strategies, java.util.concurrent.ForkJoinPool pool) {
+    int n = strategies.length;
+    this.pool = pool;
+    this.strategies = strategies;
+    this.cells = new int[n];
+    this.cameFrom = new int[n];
+    this.moves = new int[n];
+    this.wrongMoves = new int[n];
+    this.finishedAt = new int[n];
+    this.visits = new long[0];
+    this.solution = new long[0];
+    this.turnOrder = new int[0];
+    int[] path = GraphSearch.breadthFirst(maze, maze.start, maze.target);
+    this.restart(maze, path, path.length);
+  }
+
+  // send every bot into the maze last made in the given workspace, solving
+  // it there and keeping this swarm's arrays unless the maze is bigger.
+  // Runs over maze after maze reuse one swarm and workspace this way
+  void reset(MazeWorkspace work) {
+    work.solve();
+    this.restart(work.maze, work.path, work.pathLength);
+  }
+
+  // put every bot back at the start of the given maze, whose solution is the
+  // first length cells of path; the moves and time counted carry on
+  void restart(GraphMaze maze, int[] path, int length) {
+    MazeGraph g = maze.graph;
+    int n = this.cells.length;
+    this.maze = maze;
+    Arrays.fill(this.cells, maze.start);
+    Arrays.fill(this.cameFrom, -1);
+    Arrays.fill(this.moves, 0);
+    Arrays.fill(this.wrongMoves, 0);
+    Arrays.fill(this.finishedAt, -1);
+    this.visitWords = (g.cells + 63) >>> 6;
+    if (this.visits.length < n * this.visitWords) {
+      this.visits = new long[n * this.visitWords];
+    }
+    else {
+      Arrays.fill(this.visits, 0, n * this.visitWords, 0);
+    }
+    for (int a = 0; a < n; a++) {
+      this.visit(a, maze.start);
+    }
+    this.markSolution(path, length);
+    if (this.turnOrder.length < g.edgeCount() * 2) {
+      this.turnOrder = new int[g.edgeCount() * 2];
+    }
+    BotSwarm.turnOrder(g, this.turnOrder);
+    for (BotStrategy strategy : this.strategies) {
+      strategy.reset(g);
+    }
+    this.ticks = 0;
+  }
+
+  // count moves off the first length cells of path from now on, as when
+  // passages have opened or closed under the bots
+  void markSolution(int[] path, int length) {
+    if (this.solution.length < this.visitWords) {
+      this.solution = new long[this.visitWords];
+    }
+    else {
+      Arrays.fill(this.solution, 0, this.visitWords, 0);
+    }
+    for (int i = 0; i < length; i++) {
+      ParallelBfs.set(this.solution, path[i]);
+    }
+  }
+
+  // a swarm of the given size made up of equal parts random walkers, wall
+  // followers and Tremaux bots
+  static BotSwarm mixed(GraphMaze maze, int agents, long seed,
+      java.util.concurrent.ForkJoinPool pool) {
+    SplittableRandom seeds = new SplittableRandom(seed);
+    BotStrategy[] strategies = new BotStrategy[agents];
+    WallFollower follower = new WallFollower();
+    for (int a = 0; a < agents; a++) {
+      if (a % 3 == 0) {
+        strategies[a] = new RandomWalk(seeds.nextLong());
+      }
+      else if (a % 3 == 1) {
+        strategies[a] = follower;
+      }
+      else {
+        strategies[a] = new Tremaux(maze.graph);
+      }
+    }
+    return new BotSwarm(maze, strategies, pool);
+  }
+
+  // each cell's slots sorted by the direction of the neighbor in the layout,
+  // counting a jump across a wrapped border as a single step
+  static int[] turnOrder(MazeGraph g) {
+    return BotSwarm.turnOrder(g, new int[g.edgeCount() * 2]);
+  }
+
+  // the same order written into the front of result
+  static int[] turnOrder(MazeGraph g, int[] result) {
+    for (int c = 0; c < g.cells; c++) {
+      for (int s = g.offsets[c]; s < g.offsets[c + 1]; s++) {
+        double angle = BotSwarm.angle(g, c, s);
+        // insertion sort, as a cell has only a few neighbors
+        int i = s;
+        while (i > g.offsets[c] && BotSwarm.angle(g, c, result[i - 1]) > angle) {
+          result[i] = result[i - 1];
+          i--;
+        }
+        result[i] = s;
+      }
+    }
+    return result;
+  }
+
+  // the direction from cell c to the neighbor across slot s
+  static double angle(MazeGraph g, int c, int s) {
+    int dx = Integer.signum(g.cellX(g.targets[s]) - g.cellX(c));
+    int dy = Integer.signum(g.cellY(g.targets[s]) - g.cellY(c));
+    if (Math.abs(g.cellX(g.targets[s]) - g.cellX(c)) > 1) {
+      dx = -dx;
+    }
+    if (Math.abs(g.cellY(g.targets[s]) - g.cellY(c)) > 1) {
+      dy = -dy;
+    }
+    return Math.atan2(dy, dx);
+  }
+
+  // move every bot that has not finished once
+  void step() {
+    long start = System.nanoTime();
+    int batches = (this.cells.length + BATCH - 1) / BATCH;
+    long moved = this.pool.submit(() -> java.util.stream.IntStream.range(0, batches).parallel()
+        .mapToLong(this::stepBatch).sum()).join();
+    this.ticks++;
+    this.totalMoves += moved;
+    this.stepNanos += System.nanoTime() - start;
+  }
+
+  // move the bots in batch b, returning how many moved
+  long stepBatch(int b) {
+    long moved = 0;
+    int end = Math.min(this.cells.length, (b + 1) * BATCH);
+    for (int a = b * BATCH; a < end; a++) {
+      if (this.finishedAt[a] < 0 && this.stepAgent(a)) {
+        moved++;
+      }
+    }
+    return moved;
+  }
+
+  // move bot a along the passage its strategy picks, returning false if it
+  // stayed put
+  boolean stepAgent(int a) {
+    int s = this.strategies[a].move(this, a);
+    if (s < 0) {
+      return false;
+    }
+    int next = this.maze.graph.targets[s];
+    this.cameFrom[a] = this.cells[a];
+    this.cells[a] = next;
+    this.moves[a]++;
+    if (!ParallelBfs.get(this.solution, next)) {
+      this.wrongMoves[a]++;
+    }
+    this.visit(a, next);
+    if (next == this.maze.target) {
+      this.finishedAt[a] = this.ticks + 1;
+    }
+    return true;
+  }
+
+  // record that bot a has been in cell c
+  void visit(int a, int c) {
+    this.visits[a * this.visitWords + (c >>> 6)] |= 1L << c;
+  }
+
+  // has bot a been in cell c?
+  boolean visited(int a, int c) {
+    return (this.visits[a * this.visitWords + (c >>> 6)] & (1L << c)) != 0;
+  }
+
+  // the number of bots that have reached the target
+  int finishedCount() {
+    int result = 0;
+    for (int f : this.finishedAt) {
+      if (f >= 0) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  // the bot moves made per second spent stepping
+  double movesPerSecond() {
+    return this.stepNanos == 0 ? 0 : this.totalMoves * 1e9 / this.stepNanos;
+  }
+
+  // return a string revealing bot a's score
+  String getScore(int a) {
+    String result = "Bot " + a + " made " + this.wrongMoves[a] + " wrong moves in "
+        + this.moves[a] + " moves";
+    if (this.finishedAt[a] >= 0) {
+      result = result + ", finishing on step " + this.finishedAt[a];
+    }
+    return result;
+  }
+
+  // draw a dot on every cell holding at least one bot
+  void draw(WorldScene bg) {
+    if (this.drawn.length < this.visitWords) {
+      this.drawn = new long[this.visitWords];
+    }
+    else {
+      Arrays.fill(this.drawn, 0, this.visitWords, 0);
+    }
+    for (int c : this.cells) {
+      if (!ParallelBfs.get(this.drawn, c)) {
+        ParallelBfs.set(this.drawn, c);
+        int x = this.maze.graph.cellX(c) * MazeWorld.EDGEWIDTH + MazeWorld.EDGEWIDTH / 2;
+        int y = this.maze.graph.cellY(c) * MazeWorld.EDGEHEIGHT + MazeWorld.EDGEHEIGHT / 2;
+        bg.placeImageXY(BotSwarm.DOT, x, y);
+      }
+    }
+  }
+}
+
+// to time the backend at sizes too large for the tests, run from the command line
+class MazeBenchmarks {
+  // run the benchmarks: java MazeBenchmarks [width height bots steps]
+  public static void main(String[] args) {
+    int width = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    int height = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    int bots = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+    int steps = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+    MazeBenchmarks.squareGrid(40);
+    MazeBenchmarks.parallelBfs(width, height);
+    MazeBenchmarks.botScaling(width, height, bots, steps);
+    MazeBenchmarks.offHeap(width, height);
+    MazeBenchmarks.cellOrders(width, height);
+    MazeBenchmarks.dynamicWalls(width, height, 10000);
+    MazeBenchmarks.hierarchical(width, height, 32, 1000);
+    MazeBenchmarks.resets(100, 100, 2000);
+  }
+
+  // time generating and solving many small mazes, each made from scratch
+  // and then all in one reused workspace, with the bytes allocated for each
+  static void resets(int width, int height, int mazes) {
+    java.lang.management.ThreadMXBean threads =
+        java.lang.management.ManagementFactory.getThreadMXBean();
+    com.sun.management.ThreadMXBean counter = threads instanceof com.sun.management.ThreadMXBean
+        ? (com.sun.management.ThreadMXBean) threads : null;
+    long id = Thread.currentThread().getId();
+    MazeWorkspace work = new MazeWorkspace();
+    for (int pass = 0; pass < 2; pass++) {
+      long bytes = counter == null ? 0 : counter.getThreadAllocatedBytes(id);
+      long start = System.nanoTime();
+      for (int i = 0; i < mazes; i++) {
+        if (pass == 0) {
+          GraphMaze maze = GraphMaze.kruskal(MazeGraph.grid(width, height), new Random(i));
+          GraphSearch.breadthFirst(maze, maze.start, maze.target);
+        }
+        else {
+          work.generate(width, height, i);
+          work.solve();
+        }
+      }
+      long allocated = counter == null ? -1 : counter.getThreadAllocatedBytes(id) - bytes;
+      System.out.printf("%s %dx%d: %.1f us a maze, %d bytes allocated a maze%n",
+          pass == 0 ? "fresh" : "workspace", width, height,
+          (System.nanoTime() - start) / 1000.0 / mazes, allocated / mazes);
+    }
+  }
+
+  // time random path queries answered through clusters against a flat search
+  static void hierarchical(int width, int height, int size, int queries) {
+    MazeGraph g = MazeGraph.grid(width, height);
+    GraphMaze maze = GraphMaze.braided(g, g.randomWeights(1L), 0.1, 1);
+    long start = System.nanoTime();
+    HierarchicalMaze hpa = new HierarchicalMaze(maze, size);
+    long build = System.nanoTime() - start;
+    WeightedSearch flat = new WeightedSearch(maze);
+    Random random = new Random(1);
+    long hpaNanos = 0;
+    long flatNanos = 0;
+    long cells = 0;
+    long expanded = 0;
+    for (int q = 0; q < queries; q++) {
+      int from = random.nextInt(g.cells);
+      int to = random.nextInt(g.cells);
+      start = System.nanoTime();
+      cells += hpa.findPath(from, to).length;
+      hpaNanos += System.nanoTime() - start;
+      expanded += hpa.expanded;
+      start = System.nanoTime();
+      flat.aStar(from, to);
+      flatNanos += System.nanoTime() - start;
+    }
+    System.out.printf("clusters of %d in %dx%d: built in %d ms, %d abstract nodes, "
+        + "%.1f us a query against %.1f us flat, %d cells a path, %d nodes expanded%n", size,
+        width, height, build / 1000000, hpa.graph.cells, hpaNanos / 1000.0 / queries,
+        flatNanos / 1000.0 / queries, cells / queries, expanded / queries);
+  }
+
+  // time repairing the distances after each of a run of random wall
+  // changes, against measuring them all again once
+  static void dynamicWalls(int width, int height, int edits) {
+    MazeGraph g = MazeGraph.grid(width, height);
+    DynamicMaze live = new DynamicMaze(GraphMaze.braided(g, g.randomWeights(1L), 0.1, 1));
+    long start = System.nanoTime();
+    live.rebuild();
+    long rebuild = System.nanoTime() - start;
+    Random random = new Random(1);
+    long[] times = new long[edits];
+    long touched = 0;
+    for (int i = 0; i < edits; i++) {
+      int e = random.nextInt(g.edgeCount());
+      start = System.nanoTime();
+      if (live.maze.isOpen(e)) {
+        live.close(e);
+      }
+      else {
+        live.open(e);
+      }
+      times[i] = System.nanoTime() - start;
+      touched += live.touched;
+    }
+    long total = 0;
+    for (long time : times) {
+      total += time;
+    }
+    Arrays.sort(times);
+    // a cut near the target repairs a big branch, so the mean is far above the median
+    System.out.printf("walls %dx%d: median %.1f us, mean %.1f us an edit, %d cells touched, "
+        + "full rebuild %d us%n", width, height, times[edits / 2] / 1000.0,
+        total / 1000.0 / edits, touched / edits, rebuild / 1000);
+  }
+
+  // time breadth-first searches with the cells numbered along each curve.
+  // Java cannot count cache misses, so also print how many passages join
+  // cells whose ints share a 64 byte cache line, and how many a 4 KB page,
+  // labelled as the proxy they are rather than measured misses
+  static void cellOrders(int width, int height) {
+    String[] names = { "rows", "morton", "hilbert" };
+    for (int curve = CellOrder.ROWS; curve <= CellOrder.HILBERT; curve++) {
+      MazeGraph g = MazeGraph.grid(width, height, curve);
+      GraphMaze maze = GraphMaze.kruskal(g, g.randomWeights(1L));
+      long sameLine = 0;
+      long samePage = 0;
+      for (int e = 0; e < g.edgeCount(); e++) {
+        if (maze.isOpen(e)) {
+          sameLine += g.edgeA[e] >>> 4 == g.edgeB[e] >>> 4 ? 1 : 0;
+          samePage += g.edgeA[e] >>> 10 == g.edgeB[e] >>> 10 ? 1 : 0;
+        }
+      }
+      long best = Long.MAX_VALUE;
+      for (int round = 0; round < 5; round++) {
+        long start = System.nanoTime();
+        GraphSearch.breadthFirst(maze, maze.start, maze.target);
+        best = Math.min(best, System.nanoTime() - start);
+      }
+      System.out.printf("%s %dx%d: bfs %d ms, locality proxy (not measured misses): "
+          + "passages in one line %.1f%%, in one page %.1f%%%n",
+          names[curve], width, height, best / 1000000, 100.0 * sameLine / (g.cells - 1),
+          100.0 * samePage / (g.cells - 1));
+    }
+  }
+
+  // time carving a square world maze of Nodes with the HashMap Kruskal's
+  // algorithm the world used to run and with the UnionFind one it runs now,
+  // then solving it, and the same size carved and solved in a GraphMaze
+  static void squareGrid(int size) {
+    ArrayList<ArrayList<Node>> nodes = MazeUtils.initializeNodes(size, size);
+    ArrayList<Edge> allEdges = MazeUtils.initializeEdges(nodes, new Random(1), 0);
+    long start = System.nanoTime();
+    MazeBenchmarks.hashMapKruskal(nodes, new ArrayList<Edge>(allEdges));
+    long hashMap = System.nanoTime() - start;
+    start = System.nanoTime();
+    MazeUtils.initializeMaze(nodes, allEdges, 0);
+    long unionFind = System.nanoTime() - start;
+    start = System.nanoTime();
+    int length = MazeUtils.depthFirstSearch(nodes).size();
+    long solve = System.nanoTime() - start;
+    start = System.nanoTime();
+    GraphMaze maze = GraphMaze.kruskal(MazeGraph.grid(size, size), new Random(1));
+    GraphSearch.depthFirst(maze, maze.start, maze.target);
+    long graph = System.nanoTime() - start;
+    System.out.printf("world %dx%d: hash map kruskal %d ms, union-find kruskal %d ms, "
+        + "path %d in %d ms, graph maze carved and solved in %d ms%n", size, size,
+        hashMap / 1000000, unionFind / 1000000, length, solve / 1000000, graph / 1000000);
+  }
+
+  // the world's Kruskal's algorithm before it moved onto UnionFind: node
+  // names in a HashMap, checked for a single tree after every edge, which is
+  // quadratic in the cells. Kept only to time and check the new one against
+  static ArrayList<Edge> hashMapKruskal(ArrayList<ArrayList<Node>> nodes,
+      ArrayList<Edge> allEdges) {
+    HashMap<String, String> representatives = new HashMap<String, String>();
+    ArrayList<Edge> edgesInTree = new ArrayList<Edge>();
+    MazeUtils.sort(allEdges);
+    MazeUtils.initRepresentatives(representatives, nodes);
+    for (int i = 0; MazeUtils.moreThanOneTree(representatives); i++) {
+      Edge next = allEdges.get(i);
+      String a = MazeUtils.find(representatives, next.a.toString());
+      String b = MazeUtils.find(representatives, next.b.toString());
+      if (!a.equals(b)) {
+        edgesInTree.add(next);
+        MazeUtils.union(representatives, a, b);
+      }
+    }
+    return edgesInTree;
+  }
+
+  // time solving one big maze with the sequential breadth-first search and
+  // with the level-synchronous parallel one, best of a few runs each
+  static void parallelBfs(int width, int height) {
+    GraphMaze maze = GraphMaze.kruskal(MazeGraph.grid(width, height), new Random(1));
+    ParallelBfs parallel = new ParallelBfs(maze);
+    long sequential = Long.MAX_VALUE;
+    long levels = Long.MAX_VALUE;
+    int length = 0;
+    for (int round = 0; round < 3; round++) {
+      long start = System.nanoTime();
+      length = GraphSearch.breadthFirst(maze, maze.start, maze.target).length;
+      sequential = Math.min(sequential, System.nanoTime() - start);
+      start = System.nanoTime();
+      parallel.solve(maze.start, maze.target);
+      levels = Math.min(levels, System.nanoTime() - start);
+    }
+    System.out.printf("bfs %dx%d: sequential %d ms, parallel %d ms on %d threads, path %d, "
+        + "%d levels, %d bottom-up%n", width, height, sequential / 1000000, levels / 1000000,
+        parallel.pool.getParallelism(), length, parallel.levels, parallel.bottomUpLevels);
+  }
+
+  // time carving and solving a maze on the heap and off it, with the time
+  // the garbage collector spent on each
+  static void offHeap(int width, int height) {
+    long gc = MazeBenchmarks.gcMillis();
+    long start = System.nanoTime();
+    GraphMaze maze = GraphMaze.kruskal(MazeGraph.grid(width, height), new Random(1));
+    int length = GraphSearch.depthFirst(maze, maze.start, maze.target).length;
+    System.out.printf("heap %dx%d: %d ms, path %d, gc %d ms%n", width, height,
+        (System.nanoTime() - start) / 1000000, length, MazeBenchmarks.gcMillis() - gc);
+    gc = MazeBenchmarks.gcMillis();
+    start = System.nanoTime();
+    try (OffHeapMaze offHeap = OffHeapMaze.generate(width, height, 1)) {
+      long solved = offHeap.solve();
+      System.out.printf("off heap %dx%d: %d ms, path %d, gc %d ms%n", width, height,
+          (System.nanoTime() - start) / 1000000, solved, MazeBenchmarks.gcMillis() - gc);
+    }
+  }
+
+  // total time spent collecting garbage so far
+  static long gcMillis() {
+    long total = 0;
+    for (java.lang.management.GarbageCollectorMXBean bean
+        : java.lang.management.ManagementFactory.getGarbageCollectorMXBeans()) {
+      total += Math.max(0, bean.getCollectionTime());
+    }
+    return total;
+  }
+
+  // time a mixed swarm with growing numbers of threads
+  static void botScaling(int width, int height, int bots, int steps) {
+    // every bot keeps a bit per cell, and a Tremaux bot two bits per edge
+    // too, so take no more bots than fit in half the heap
+    long cells = (long) width * height;
+    long bytesPerBot = cells / 8 + cells * 4 / 8 / 3 + 64;
+    long fit = Runtime.getRuntime().maxMemory() / 2 / bytesPerBot;
+    if (bots > fit) {
+      System.out.printf("bots: only %d of %d bots fit in the heap%n", fit, bots);
+      bots = (int) fit;
+    }
+    MazeWorkspace work = new MazeWorkspace();
+    int cores = Runtime.getRuntime().availableProcessors();
+    for (int threads = 1; threads <= cores; threads *= 2) {
+      java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(threads);
+      BotSwarm swarm = BotSwarm.mixed(work.generate(width, height, 0), bots, 1, pool);
+      // a few mazes in turn, each carved and solved in the same buffers
+      for (int maze = 0; maze < 4; maze++) {
+        work.generate(width, height, maze);
+        swarm.reset(work);
+        for (int i = 0; i < steps / 4; i++) {
+          swarm.step();
+        }
+      }
+      System.out.printf("bots %dx%d, %d bots, %d threads: %.0f bot moves/s%n", width, height,
+          bots, threads, swarm.movesPerSecond());
+      pool.shutdown();
+    }
+  }
+}
+
+// to turn real time into a whole number of fixed length simulation steps,
+// carrying over the time left from each call and dropping whatever is owed
+// beyond a cap so that a slow machine skips ahead rather than falling behind
+class FixedStepClock {
+  // length of one simulation step
+  long stepNanos;
+  // the most steps handed out at once
+  int maxSteps;
+  // time of the last call, -1 before the first
+  long last = -1;
+  // time passed but not yet handed out as steps
+  long owed = 0;
+  // number of steps dropped so far for being over the cap
+  long dropped = 0;
+  // was the cap hit on the last call?
+  boolean behind = false;
+
+  FixedStepClock(double stepsPerSecond, int maxSteps) {
+    if (stepsPerSecond <= 0 || maxSteps < 1) {
+      throw new IllegalArgumentException("Invalid step rate " + stepsPerSecond + " or cap "
+          + maxSteps);
+    }
+    this.stepNanos = Math.max(1, Math.round(1e9 / stepsPerSecond));
+    this.maxSteps = maxSteps;
+  }
+
+  // the number of steps due at the given time in nanoseconds; the first call
+  // only starts the clock
+  int stepsDue(long now) {
+    if (this.last < 0) {
+      this.last = now;
+      return 0;
+    }
+    this.owed += now - this.last;
+    this.last = now;
+    long due = this.owed / this.stepNanos;
+    this.owed -= due * this.stepNanos;
+    this.behind = due > this.maxSteps;
+    if (this.behind) {
+      this.dropped += due - this.maxSteps;
+      due = this.maxSteps;
+    }
+    return (int) due;
+  }
+}
+
+// to write a PNG image of 8 bit RGB pixels a few rows at a time, deflating
+// the rows as they come in so the whole image is never held at once. The
+// deflater holds native memory, so a writer must be closed even when the
+// image is never finished
+class PngStripWriter {
+  // the bytes every PNG file starts with
+  static final byte[] SIGNATURE = { (byte) 137, 80, 78, 71, 13, 10, 26, 10 };
+
+  // where the image is written
+  java.io.DataOutputStream out;
+  // compresses the rows into image data chunks
+  java.util.zip.Deflater deflater;
+  // holds compressed bytes until they are written as a chunk
+  byte[] buffer = new byte[1 << 16];
+
+  // start an image of the given size by writing its header
+  PngStripWriter(java.io.OutputStream out, int width, int height) throws java.io.IOException {
+    this.out = new java.io.DataOutputStream(out);
+    this.out.write(SIGNATURE);
+    java.nio.ByteBuffer header = java.nio.ByteBuffer.allocate(13);
+    // 8 bits per sample, RGB, default compression and filtering, no interlacing
+    header.putInt(width).putInt(height).put((byte) 8).put((byte) 2).put((byte) 0)
+        .put((byte) 0).put((byte) 0);
+    this.writeChunk("IHDR", header.array(), 13);
+    // made only once the header is out, so a failed header leaves nothing to free
+    this.deflater = new java.util.zip.Deflater(6);
+  }
+
+  // add the given filtered rows, each a filter type byte then its pixels
+  void write(byte[] rows, int off, int len) throws java.io.IOException {
+    this.deflater.setInput(rows, off, len);
+    while (!this.deflater.needsInput()) {
+      this.drain();
+    }
+  }
+
+  // end the image once every row is in
+  void finish() throws java.io.IOException {
+    this.deflater.finish();
+    while (!this.deflater.finished()) {
+      this.drain();
+    }
+    this.writeChunk("IEND", new byte[0], 0);
+    this.out.flush();
+  }
+
+  // free the deflater, finished or not; closing more than once does nothing
+  void close() {
+    this.deflater.end();
+  }
+
+  // write whatever the deflater has ready as one image data chunk
+  void drain() throws java.io.IOException {
+    int n = this.deflater.deflate(this.buffer);
+    if (n > 0) {
+      this.writeChunk("IDAT", this.buffer, n);
+    }
+  }
+
+  // write a chunk: its length, its type, its data and a checksum of the last two
+  void writeChunk(String type, byte[] data, int len) throws java.io.IOException {
+    byte[] typeBytes = type.getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+    java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+    crc.update(typeBytes);
+    crc.update(data, 0, len);
+    this.out.writeInt(len);
+    this.out.write(typeBytes);
+    this.out.write(data, 0, len);
+    this.out.writeInt((int) crc.getValue());
+  }
+}
+
+// to export a grid maze, its solution and optionally how a search spread
+// through it as a PNG image. The image is made in strips of cell rows that are
+// drawn in parallel and handed to a PngStripWriter in order, with only a few
+// strips in memory at once
+class MazeImageExporter {
+  // colors, as used by Node and Edge
+  static final int WALL = 0x666666;
+  static final int FLOOR = 0xC0C0C0;
+  static final int PATH = 0x3D76CC;
+  static final int HEAT_LOW = 0x91B8F2;
+  static final int HEAT_HIGH = 0x6C2080;
+
+  // the maze to draw, laid out on a grid in any cell order
+  MazeAccess maze;
+  // pixels along each side of a cell, counting one wall
+  int cellSize;
+  // is a cell on the solution path?
+  java.util.function.IntPredicate path;
+  // how far into a search each cell was reached, -1 if never, or null for no heatmap
+  int[] heat = null;
+  int maxHeat = 1;
+  // cell rows drawn by each strip
+  int stripRows = 64;
+  // the pool strips are drawn on
+  java.util.concurrent.ExecutorService pool;
+
+  MazeImageExporter(GraphMaze maze, int[] solution, int cellSize,
+      java.util.concurrent.ExecutorService pool) {
+    this(maze, MazeImageExporter.onPath(maze.graph.cells, solution), cellSize, pool);
+  }
+
+  // an exporter for any maze, asking it which cells are on the path
+  MazeImageExporter(MazeAccess maze, java.util.function.IntPredicate path, int cellSize,
+      java.util.concurrent.ExecutorService pool) {
+    if (cellSize < 2) {
+      throw new IllegalArgumentException("Cells need at least 2 pixels, not " + cellSize);
+    }
+    this.maze = maze;
+    this.path = path;
+    this.cellSize = cellSize;
+    this.pool = pool;
+  }
+
+  // is a cell among the given ones? kept as one bit per cell
+  static java.util.function.IntPredicate onPath(int cells, int[] solution) {
+    long[] bits = new long[(cells + 63) >>> 6];
+    for (int c : solution) {
+      ParallelBfs.set(bits, c);
+    }
+    return c -> ParallelBfs.get(bits, c);
+  }
+
+  // an exporter for the given world's maze, solution and search so far, with
+  // each searched cell shaded by the step of the search log that first took
+  // it, and cells visited outside a search (by the player) at the low end
+  static MazeImageExporter forWorld(MazeWorld world, int cellSize,
+      java.util.concurrent.ExecutorService pool) {
+    GraphMaze maze = GraphMaze.fromNodes(world.nodes);
+    int[] solution = new int[world.path.size()];
+    int[] heat = new int[maze.graph.cells];
+    for (int i = 0; i < solution.length; i++) {
+      solution[i] = maze.graph.cellAt(world.path.get(i).x, world.path.get(i).y);
+    }
+    for (ArrayList<Node> l : world.nodes) {
+      for (Node n : l) {
+        heat[maze.graph.cellAt(n.x, n.y)] = n.visited ? 0 : -1;
+      }
+    }
+    SearchLog log = world.searchLog;
+    if (log != null) {
+      for (int i = 0; i < world.searchStep; i++) {
+        if (log.events[i] >= 0) {
+          Node n = world.nodeAt(log.events[i]);
+          heat[maze.graph.cellAt(n.x, n.y)] = i;
+        }
+      }
+    }
+    return new MazeImageExporter(maze, solution, cellSize, pool).withHeat(heat);
+  }
+
+  // shade each cell by the given search order, -1 for cells never reached
+  MazeImageExporter withHeat(int[] heat) {
+    this.heat = heat;
+    this.maxHeat = 1;
+    for (int h : heat) {
+      this.maxHeat = Math.max(this.maxHeat, h);
+    }
+    return this;
+  }
+
+  // the size of the image in pixels
+  int imageWidth() {
+    return this.maze.width() * this.cellSize + 1;
+  }
+
+  int imageHeight() {
+    return this.maze.height() * this.cellSize + 1;
+  }
+
+  // write the image to the given stream, keeping at most two strips per
+  // thread in flight
+  void export(java.io.OutputStream out, int threads) throws java.io.IOException {
+    PngStripWriter png = new PngStripWriter(out, this.imageWidth(), this.imageHeight());
+    int lines = this.stripRows * this.cellSize;
+    int strips = (this.imageHeight() + lines - 1) / lines;
+    ArrayDeque<java.util.concurrent.Future<byte[]>> inFlight =
+        new ArrayDeque<java.util.concurrent.Future<byte[]>>();
+    int next = 0;
+    try {
+      while (next < strips || !inFlight.isEmpty()) {
+        while (next < strips && inFlight.size() < 2 * Math.max(1, threads)) {
+          int first = next * lines;
+          int count = Math.min(lines, this.imageHeight() - first);
+          inFlight.add(this.pool.submit(() -> this.renderStrip(first, count)));
+          next++;
+        }
+        byte[] strip = inFlight.poll().get();
+        png.write(strip, 0, strip.length);
+      }
+      png.finish();
+    }
+    catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+      // keep the interrupt for the caller, which only sees an IOException
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      throw new java.io.IOException("Could not draw the maze image", e);
+    }
+    finally {
+      // whatever stopped the export, stop drawing strips nobody will write
+      for (java.util.concurrent.Future<byte[]> f : inFlight) {
+        f.cancel(true);
+      }
+      png.close();
+    }
+  }
+
+  // the given lines of pixels, each starting with a filter byte saying it is
+  // stored as its difference from the line above
+  byte[] renderStrip(int first, int count) {
+    int rowBytes = this.imageWidth() * 3;
+    byte[] above = new byte[rowBytes];
+    byte[] line = new byte[rowBytes];
+    byte[] result = new byte[count * (rowBytes + 1)];
+    if (first > 0) {
+      this.renderLine(first - 1, above, 0);
+    }
+    for (int i = 0; i < count; i++) {
+      this.renderLine(first + i, line, 0);
+      int off = i * (rowBytes + 1);
+      result[off] = 2;
+      for (int b = 0; b < rowBytes; b++) {
+        result[off + 1 + b] = (byte) (line[b] - above[b]);
+      }
+      byte[] tmp = above;
+      above = line;
+      line = tmp;
+    }
+    return result;
+  }
+
+  // draw line py of the image into dst as RGB bytes
+  void renderLine(int py, byte[] dst, int off) {
+    MazeAccess m = this.maze;
+    int k = this.cellSize;
+    MazeImageExporter.put(dst, off, WALL);
+    int p = off + 3;
+    if (py == 0) {
+      for (int i = 1; i < this.imageWidth(); i++, p += 3) {
+        MazeImageExporter.put(dst, p, WALL);
+      }
+      return;
+    }
+    int y = (py - 1) / k;
+    boolean bottom = (py - 1) % k == k - 1;
+    for (int x = 0; x < m.width(); x++) {
+      int c = m.cellAt(x, y);
+      int inside;
+      int side;
+      if (bottom) {
+        int below = y < m.height() - 1 ? m.cellAt(x, y + 1) : -1;
+        inside = below >= 0 && m.isPassage(c, below) ? this.passageColor(c, below) : WALL;
+        side = WALL;
+      }
+      else {
+        int right = x < m.width() - 1 ? m.cellAt(x + 1, y) : -1;
+        inside = this.cellColor(c);
+        side = right >= 0 && m.isPassage(c, right) ? this.passageColor(c, right) : WALL;
+      }
+      for (int i = 0; i < k - 1; i++, p += 3) {
+        MazeImageExporter.put(dst, p, inside);
+      }
+      MazeImageExporter.put(dst, p, side);
+      p += 3;
+    }
+  }
+
+  // the color of cell c: the path, its place in the search, or plain floor
+  int cellColor(int c) {
+    if (this.path.test(c)) {
+      return PATH;
+    }
+    if (this.heat != null && this.heat[c] >= 0) {
+      return MazeImageExporter.blend(HEAT_LOW, HEAT_HIGH, (double) this.heat[c] / this.maxHeat);
+    }
+    return FLOOR;
+  }
+
+  // the color of the opening between cells a and b, taking the color they share
+  int passageColor(int a, int b) {
+    int ca = this.cellColor(a);
+    return ca == this.cellColor(b) ? ca : FLOOR;
+  }
+
+  // the color the given fraction of the way from one color to another
+  static int blend(int from, int to, double t) {
+    int result = 0;
+    for (int shift = 0; shift <= 16; shift += 8) {
+      int a = (from >> shift) & 0xFF;
+      int b = (to >> shift) & 0xFF;
+      result |= ((int) Math.round(a + (b - a) * t) & 0xFF) << shift;
+    }
+    return result;
+  }
+
+  // store the given color as 3 bytes at dst[off]
+  static void put(byte[] dst, int off, int rgb) {
+    dst[off] = (byte) (rgb >> 16);
+    dst[off + 1] = (byte) (rgb >> 8);
+    dst[off + 2] = (byte) rgb;
+  }
+}
+
+// to measure how hard a maze is in one breadth-first sweep from the start
+// and one pass back over the cells in the order they were reached. The
+// corridor, detour and river figures treat the maze as a tree, so on braided
+// mazes they follow the breadth-first tree rather than every loop
+class MazeAnalytics {
+  // number of cells reachable from the start
+  int reachable = 0;
+  // number of reachable cells with each number of open passages
+  int[] degreeCounts;
+  // reachable cells with one passage, and with three or more
+  int deadEnds = 0;
+  int junctions = 0;
+  // cells on the path from start to target, 0 if there is none
+  int solutionLength = 0;
+  // the most passages in a row joined by cells with exactly two passages
+  int longestCorridor = 0;
+  // the mean number of steps from a cell off the solution back to it
+  double averageDetour = 0;
+  // the mean number of cells in each branch leaving the solution
+  double river = 0;
+
+  MazeAnalytics(GraphMaze maze) {
+    MazeGraph g = maze.graph;
+    int maxDegree = 0;
+    for (int c = 0; c < g.cells; c++) {
+      maxDegree = Math.max(maxDegree, g.degree(c));
+    }
+    this.degreeCounts = new int[maxDegree + 1];
+    int[] order = new int[g.cells];
+    int[] cameFrom = GraphSearch.unvisited(g.cells);
+    int[] depth = new int[g.cells];
+    int[] openDegree = new int[g.cells];
+    // the cell at the top of the corridor each cell is in
+    int[] top = new int[g.cells];
+
+    int head = 0;
+    int tail = 0;
+    order[tail++] = maze.start;
+    cameFrom[maze.start] = maze.start;
+    top[maze.start] = maze.start;
+    int rootCorridor = 0;
+    while (head < tail) {
+      int c = order[head++];
+      int deg = maze.openDegree(c);
+      openDegree[c] = deg;
+      this.degreeCounts[deg]++;
+      if (deg == 1) {
+        this.deadEnds++;
+      }
+      else if (deg >= 3) {
+        this.junctions++;
+      }
+      // a cell that is not in the middle of a corridor ends the one above it
+      if (c != maze.start && deg != 2) {
+        int length = depth[c] - depth[top[c]];
+        if (top[c] == maze.start && openDegree[maze.start] == 2) {
+          // the start sits inside a corridor running out both ways
+          rootCorridor += length;
+          length = rootCorridor;
+        }
+        this.longestCorridor = Math.max(this.longestCorridor, length);
+      }
+      for (int s = g.offsets[c]; s < g.offsets[c + 1]; s++) {
+        int v = g.targets[s];
+        if (cameFrom[v] < 0 && maze.isOpen(g.slotEdges[s])) {
+          cameFrom[v] = c;
+          depth[v] = depth[c] + 1;
+          top[v] = deg == 2 ? top[c] : c;
+          order[tail++] = v;
+        }
+      }
+    }
+    this.reachable = tail;
+    if (cameFrom[maze.target] < 0) {
+      return;
+    }
+
+    // mark the solution, then walk the cells in the order they were reached,
+    // so each cell's parent has already been tied to the solution
+    long[] onPath = new long[(g.cells + 63) >>> 6];
+    for (int c = maze.target; c != maze.start; c = cameFrom[c]) {
+      ParallelBfs.set(onPath, c);
+    }
+    ParallelBfs.set(onPath, maze.start);
+    this.solutionLength = depth[maze.target] + 1;
+    // reuse top as the solution cell each cell hangs from
+    long detours = 0;
+    int offPath = 0;
+    int branches = 0;
+    for (int i = 0; i < tail; i++) {
+      int c = order[i];
+      if (ParallelBfs.get(onPath, c)) {
+        top[c] = c;
+      }
+      else {
+        top[c] = top[cameFrom[c]];
+        detours += depth[c] - depth[top[c]];
+        offPath++;
+        if (ParallelBfs.get(onPath, cameFrom[c])) {
+          branches++;
+        }
+      }
+    }
+    this.averageDetour = offPath == 0 ? 0 : (double) detours / offPath;
+    this.river = branches == 0 ? 0 : (double) offPath / branches;
+  }
+
+  // generate a maze for each of count seeds from firstSeed on, in parallel,
+  // and return the seeds whose mazes pass the given test
+  static long[] filterSeeds(MazeGraph graph, long firstSeed, int count,
+      java.util.function.Predicate<MazeAnalytics> keep) {
+    return java.util.stream.LongStream.range(firstSeed, firstSeed + count).parallel()
+        .filter(seed -> keep.test(new MazeAnalytics(
+            GraphMaze.kruskal(graph, graph.randomWeights(seed)))))
+        .toArray();
+  }
+}
+
+// to carve one tile of a sharded maze, either in its own process or called
+// by the coordinator. Each tile is a perfect maze of its own, written to
+// tile-X-Y.maze in the MazeFile format
+class ShardWorker {
+  // carve one tile: java ShardWorker dir seed width height tileWidth tileHeight tileX tileY
+  public static void main(String[] args) {
+    try {
+      ShardWorker.writeTile(new java.io.File(args[0]), Long.parseLong(args[1]),
+          Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]),
+          Integer.parseInt(args[5]), Integer.parseInt(args[6]), Integer.parseInt(args[7]));
+    }
+    catch (java.io.IOException | RuntimeException e) {
+      System.err.println("Tile " + Arrays.toString(args) + " failed: " + e);
+      System.exit(1);
+    }
+  }
+
+  // carve the given tile of a width by height maze and write it to dir
+  static void writeTile(java.io.File dir, long seed, int width, int height, int tileWidth,
+      int tileHeight, int tx, int ty) throws java.io.IOException {
+    int w = Math.min(tileWidth, width - tx * tileWidth);
+    int h = Math.min(tileHeight, height - ty * tileHeight);
+    MazeGraph g = MazeGraph.grid(w, h);
+    int tilesX = (width + tileWidth - 1) / tileWidth;
+    GraphMaze tile = GraphMaze.kruskal(g, g.randomWeights(ShardWorker.tileSeed(seed,
+        ty * tilesX + tx)));
+    java.io.File file = ShardedMaze.tileFile(dir, tx, ty);
+    try (java.io.DataOutputStream out = new java.io.DataOutputStream(
+        new java.io.BufferedOutputStream(new java.io.FileOutputStream(file)))) {
+      MazeFile.write(tile, out);
+    }
+  }
+
+  // the seed of tile t, mixed from the maze's seed so tiles differ
+  static long tileSeed(long seed, int t) {
+    return new SplittableRandom(seed + 0x9E3779B97F4A7C15L * (t + 1)).nextLong();
+  }
+}
+
+// to make a maze too large for one heap: the grid is cut into tiles that
+// worker processes carve on their own, then the tiles are joined into one
+// perfect maze by opening one border passage per link of a spanning tree
+// over the tiles, picked with Kruskal's algorithm
+class ShardedMazeBuilder {
+  // carve a width by height maze into dir, running at most the given number
+  // of worker processes at once, or carving every tile in this process if 0
+  static ShardedMaze generate(java.io.File dir, long seed, int width, int height,
+      int tileWidth, int tileHeight, int processes)
+      throws java.io.IOException, InterruptedException {
+    MazeGraph.checkSize(width, height);
+    MazeGraph.checkSize(tileWidth, tileHeight);
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new java.io.IOException("Cannot create " + dir);
+    }
+    int tilesX = (width + tileWidth - 1) / tileWidth;
+    int tilesY = (height + tileHeight - 1) / tileHeight;
+    if (processes <= 0) {
+      for (int t = 0; t < tilesX * tilesY; t++) {
+        ShardWorker.writeTile(dir, seed, width, height, tileWidth, tileHeight, t % tilesX,
+            t / tilesX);
+      }
+    }
+    else {
+      ShardedMazeBuilder.runWorkers(dir, seed, width, height, tileWidth, tileHeight,
+          processes);
+    }
+    // check every tile as it streams back in before trusting it
+    for (int t = 0; t < tilesX * tilesY; t++) {
+      java.io.File file = ShardedMaze.tileFile(dir, t % tilesX, t / tilesX);
+      try (java.io.DataInputStream in = new java.io.DataInputStream(
+          new java.io.BufferedInputStream(new java.io.FileInputStream(file)))) {
+        String problem = MazeValidator.problemWith(in);
+        if (problem != null) {
+          throw new java.io.IOException(file + ": " + problem);
+        }
+      }
+    }
+    ShardedMazeBuilder.stitch(dir, seed, width, height, tileWidth, tileHeight);
+    return new ShardedMaze(dir);
+  }
+
+  // carve every tile in its own worker process, a few at a time
+  static void runWorkers(java.io.File dir, long seed, int width, int height, int tileWidth,
+      int tileHeight, int processes) throws java.io.IOException, InterruptedException {
+    int tilesX = (width + tileWidth - 1) / tileWidth;
+    int tiles = tilesX * ((height + tileHeight - 1) / tileHeight);
+    String launcher = System.getProperty("java.home") + java.io.File.separator + "bin"
+        + java.io.File.separator + "java";
+    // a worker stays in here until it has exited, so that whatever ends this
+    // early (a failed worker, a worker that would not start, an interrupt)
+    // takes every worker still running down with it
+    ArrayDeque<Process> running = new ArrayDeque<Process>();
+    try {
+      for (int t = 0; t < tiles || !running.isEmpty();) {
+        if (t < tiles && running.size() < processes) {
+          ProcessBuilder pb = new ProcessBuilder(launcher, "-cp",
+              System.getProperty("java.class.path"), "ShardWorker", dir.getPath(),
+              Long.toString(seed), Integer.toString(width), Integer.toString(height),
+              Integer.toString(tileWidth), Integer.toString(tileHeight),
+              Integer.toString(t % tilesX), Integer.toString(t / tilesX));
+          pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+          pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+          running.add(pb.start());
+          t++;
+        }
+        else {
+          int exit = running.peek().waitFor();
+          running.poll();
+          if (exit != 0) {
+            throw new java.io.IOException("A tile worker failed with exit code " + exit);
+          }
+        }
+      }
+    }
+    finally {
+      for (Process p : running) {
+        p.destroyForcibly();
+      }
+    }
+  }
+
+  // join the tiles with one border passage for each link of a random spanning
+  // tree over the tiles, and write the manifest listing them
+  static void stitch(java.io.File dir, long seed, int width, int height, int tileWidth,
+      int tileHeight) throws java.io.IOException {
+    int tilesX = (width + tileWidth - 1) / tileWidth;
+    int tilesY = (height + tileHeight - 1) / tileHeight;
+    // every pair of side by side tiles, with a weight and a place along their border
+    MazeGraph tiles = MazeGraph.grid(tilesX, tilesY);
+    SplittableRandom random = new SplittableRandom(seed);
+    int[] weights = new int[tiles.edgeCount()];
+    int[] places = new int[tiles.edgeCount()];
+    for (int e = 0; e < weights.length; e++) {
+      weights[e] = random.nextInt(1000000);
+      int a = tiles.edgeA[e];
+      boolean across = tiles.cellY(tiles.edgeB[e]) == tiles.cellY(a);
+      int span = across
+          ? Math.min(tileHeight, height - tiles.cellY(a) * tileHeight)
+          : Math.min(tileWidth, width - tiles.cellX(a) * tileWidth);
+      places[e] = random.nextInt(span);
+    }
+    GraphMaze links = GraphMaze.kruskal(tiles, weights);
+    try (java.io.PrintWriter out = new java.io.PrintWriter(new java.io.FileWriter(
+        new java.io.File(dir, ShardedMaze.MANIFEST)))) {
+      out.println(width + " " + height + " " + tileWidth + " " + tileHeight);
+      for (int e = 0; e < tiles.edgeCount(); e++) {
+        if (links.isOpen(e)) {
+          int a = tiles.edgeA[e];
+          String side = tiles.cellY(tiles.edgeB[e]) == tiles.cellY(a) ? "E" : "S";
+          out.println(tiles.cellX(a) + " " + tiles.cellY(a) + " " + side + " " + places[e]);
+        }
+      }
+    }
+  }
+}
+
+// to represent a maze stored as tiles on disk: its manifest lists the maze
+// and tile sizes, then one line "tileX tileY E|S place" for every passage
+// across a tile border, to the tile on the right at row place or to the tile
+// below at column place. Tiles are read as they are needed and only a few
+// are kept in memory at once
+class ShardedMaze {
+  // the file listing the sizes and the border passages
+  static final String MANIFEST = "maze.txt";
+  // number of tiles kept in memory at once
+  static final int CACHED_TILES = 4;
+
+  // where the tiles are
+  java.io.File dir;
+  // size of the whole maze and of each tile, in cells
+  int width;
+  int height;
+  int tileWidth;
+  int tileHeight;
+  int tilesX;
+  int tilesY;
+  // for each tile, where its passage into the tile on its right or below
+  // is, or -1 if it has none
+  int[] eastPassage;
+  int[] southPassage;
+  // the tiles read most recently, oldest first
+  LinkedHashMap<Integer, GraphMaze> cache =
+      new LinkedHashMap<Integer, GraphMaze>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Integer, GraphMaze> eldest) {
+          return this.size() > CACHED_TILES;
+        }
+      };
+
+  // read the manifest of the maze in dir
+  ShardedMaze(java.io.File dir) throws java.io.IOException {
+    this.dir = dir;
+    try (java.io.BufferedReader in = new java.io.BufferedReader(new java.io.FileReader(
+        new java.io.File(dir, MANIFEST)))) {
+      String[] sizes = in.readLine().trim().split(" ");
+      this.width = Integer.parseInt(sizes[0]);
+      this.height = Integer.parseInt(sizes[1]);
+      this.tileWidth = Integer.parseInt(sizes[2]);
+      this.tileHeight = Integer.parseInt(sizes[3]);
+      this.tilesX = (this.width + this.tileWidth - 1) / this.tileWidth;
+      this.tilesY = (this.height + this.tileHeight - 1) / this.tileHeight;
+      this.eastPassage = new int[this.tilesX * this.tilesY];
+      this.southPassage = new int[this.tilesX * this.tilesY];
+      Arrays.fill(this.eastPassage, -1);
+      Arrays.fill(this.southPassage, -1);
+      for (String line = in.readLine(); line != null; line = in.readLine()) {
+        String[] parts = line.trim().split(" ");
+        int t = Integer.parseInt(parts[1]) * this.tilesX + Integer.parseInt(parts[0]);
+        if (parts[2].equals("E")) {
+          this.eastPassage[t] = Integer.parseInt(parts[3]);
+        }
+        else {
+          this.southPassage[t] = Integer.parseInt(parts[3]);
+        }
+      }
+    }
+  }
+
+  // the file holding the given tile
+  static java.io.File tileFile(java.io.File dir, int tx, int ty) {
+    return new java.io.File(dir, "tile-" + tx + "-" + ty + ".maze");
+  }
+
+  // the given tile, read from disk unless it is cached
+  GraphMaze tile(int tx, int ty) throws java.io.IOException {
+    int t = ty * this.tilesX + tx;
+    GraphMaze result = this.cache.get(t);
+    if (result == null) {
+      try (java.io.DataInputStream in = new java.io.DataInputStream(
+          new java.io.BufferedInputStream(new java.io.FileInputStream(
+              ShardedMaze.tileFile(this.dir, tx, ty))))) {
+        result = MazeFile.read(in);
+      }
+      this.cache.put(t, result);
+    }
+    return result;
+  }
+
+  // find the path from the top left to the bottom right cell, returning the
+  // cells (y * width + x) from the end back to the start. The tiles form a
+  // tree, so the route through them is found first, then each tile on it is
+  // read and searched from where the route enters it to where it leaves
+  long[] solve() throws java.io.IOException {
+    int tiles = this.tilesX * this.tilesY;
+    int[] cameFrom = GraphSearch.unvisited(tiles);
+    int[] queue = new int[tiles];
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = 0;
+    cameFrom[0] = 0;
+    while (head < tail) {
+      int t = queue[head++];
+      int tx = t % this.tilesX;
+      int ty = t / this.tilesX;
+      int[] links = { tx + 1 < this.tilesX && this.eastPassage[t] >= 0 ? t + 1 : -1,
+          tx > 0 && this.eastPassage[t - 1] >= 0 ? t - 1 : -1,
+          ty + 1 < this.tilesY && this.southPassage[t] >= 0 ? t + this.tilesX : -1,
+          ty > 0 && this.southPassage[t - this.tilesX] >= 0 ? t - this.tilesX : -1 };
+      for (int n : links) {
+        if (n >= 0 && cameFrom[n] < 0) {
+          cameFrom[n] = t;
+          queue[tail++] = n;
+        }
+      }
+    }
+    if (cameFrom[tiles - 1] < 0) {
+      return new long[0];
+    }
+    int[] route = GraphSearch.reconstruct(cameFrom, tiles - 1);
+
+    // walk the route from the start tile, joining the path through each tile
+    long[] path = new long[16];
+    int length = 0;
+    long entry = 0;
+    for (int i = route.length - 1; i >= 0; i--) {
+      int t = route[i];
+      long exit;
+      long nextEntry = -1;
+      if (i == 0) {
+        exit = (long) this.width * this.height - 1;
+      }
+      else {
+        long[] border = this.border(t, route[i - 1]);
+        exit = border[0];
+        nextEntry = border[1];
+      }
+      int[] inside = this.solveTile(t, entry, exit);
+      for (int k = inside.length - 1; k >= 0; k--) {
+        if (length == path.length) {
+          path = Arrays.copyOf(path, length * 2);
+        }
+        path[length++] = this.globalCell(t, inside[k]);
+      }
+      entry = nextEntry;
+    }
+    long[] result = new long[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = path[length - 1 - i];
+    }
+    return result;
+  }
+
+  // the cell leaving tile a and the cell entering the neighboring tile b
+  long[] border(int a, int b) {
+    int lo = Math.min(a, b);
+    int hi = Math.max(a, b);
+    long loX = (long) (lo % this.tilesX) * this.tileWidth;
+    long loY = (long) (lo / this.tilesX) * this.tileHeight;
+    long loCell;
+    long hiCell;
+    if (hi == lo + 1 && lo / this.tilesX == hi / this.tilesX) {
+      long y = loY + this.eastPassage[lo];
+      long x = loX + this.tileWidth - 1;
+      loCell = y * this.width + x;
+      hiCell = loCell + 1;
+    }
+    else {
+      long x = loX + this.southPassage[lo];
+      long y = loY + this.tileHeight - 1;
+      loCell = y * this.width + x;
+      hiCell = loCell + this.width;
+    }
+    return a == lo ? new long[] { loCell, hiCell } : new long[] { hiCell, loCell };
+  }
+
+  // the path inside tile t between two of its cells, given by their global ids
+  int[] solveTile(int t, long from, long to) throws java.io.IOException {
+    GraphMaze tile = this.tile(t % this.tilesX, t / this.tilesX);
+    return GraphSearch.breadthFirst(tile, this.localCell(t, tile, from),
+        this.localCell(t, tile, to));
+  }
+
+  // the id inside tile t of the given global cell
+  int localCell(int t, GraphMaze tile, long cell) {
+    int x = (int) (cell % this.width) - (t % this.tilesX) * this.tileWidth;
+    int y = (int) (cell / this.width) - (t / this.tilesX) * this.tileHeight;
+    return tile.graph.cellAt(x, y);
+  }
+
+  // the global id of cell c inside tile t
+  long globalCell(int t, int c) {
+    int w = Math.min(this.tileWidth, this.width - (t % this.tilesX) * this.tileWidth);
+    long x = (long) (t % this.tilesX) * this.tileWidth + c % w;
+    long y = (long) (t / this.tilesX) * this.tileHeight + c / w;
+    return y * this.width + x;
+  }
+
+  // the whole maze in memory, for checking small sharded mazes
+  GraphMaze assemble() throws java.io.IOException {
+    GraphMaze result = new GraphMaze(MazeGraph.grid(this.width, this.height));
+    for (int t = 0; t < this.tilesX * this.tilesY; t++) {
+      GraphMaze tile = this.tile(t % this.tilesX, t / this.tilesX);
+      for (int e = 0; e < tile.graph.edgeCount(); e++) {
+        if (tile.isOpen(e)) {
+          result.openPassage((int) this.globalCell(t, tile.graph.edgeA[e]),
+              (int) this.globalCell(t, tile.graph.edgeB[e]));
+        }
+      }
+      if (this.eastPassage[t] >= 0) {
+        long[] b = this.border(t, t + 1);
+        result.openPassage((int) b[0], (int) b[1]);
+      }
+      if (this.southPassage[t] >= 0) {
+        long[] b = this.border(t, t + this.tilesX);
+        result.openPassage((int) b[0], (int) b[1]);
+      }
+    }
+    return result;
+  }
+}
+
+// to record a search as the cells it takes off its worklist, one int a step,
+// so it can be shown as it was after any number of steps. A cell taken again
+// after it was already visited changes nothing and is stored as its
+// complement. Every interval steps a copy of the visited set is kept, so any
+// step is at most one checkpoint and interval steps of replay away
+class SearchLog {
+  // number of cells in the maze searched
+  int cells;
+  // steps between checkpoints
+  int interval;
+  // the cell taken at each step, or its complement if it was already visited
+  int[] events = new int[1024];
+  int size = 0;
+  // checkpoint i is the visited set after i * interval steps
+  ArrayList<long[]> checkpoints = new ArrayList<long[]>();
+  // the visited set after every recorded step
+  long[] visited;
+  // the cells on the path found and the step after which it is shown, or
+  // null and -1 while the search is still looking
+  int[] solution = null;
+  int solvedAt = -1;
+
+  // a log keeping a checkpoint every cells / 8 steps, so all the checkpoints
+  // of a search that takes each cell a few times fit in a few bytes a cell
+  SearchLog(int cells) {
+    this(cells, Math.max(1024, cells / 8));
+  }
+
+  SearchLog(int cells, int interval) {
+    if (interval < 1) {
+      throw new IllegalArgumentException("Invalid checkpoint interval " + interval);
+    }
+    this.cells = cells;
+    this.interval = interval;
+    this.visited = new long[(cells + 63) >>> 6];
+    this.checkpoints.add(this.visited.clone());
+  }
+
+  // record that the search took cell c off its worklist
+  void record(int c) {
+    if (this.size == this.events.length) {
+      this.events = Arrays.copyOf(this.events, this.size * 2);
+    }
+    boolean fresh = !ParallelBfs.get(this.visited, c);
+    this.events[this.size++] = fresh ? c : ~c;
+    if (fresh) {
+      ParallelBfs.set(this.visited, c);
+    }
+    if (this.size % this.interval == 0) {
+      this.checkpoints.add(this.visited.clone());
+    }
+  }
+
+  // record that the last step found the given path
+  void solved(int[] solution) {
+    this.solution = solution;
+    this.solvedAt = this.size;
+  }
+
+  // is the path shown after the given number of steps?
+  boolean solvedBy(int step) {
+    return this.solvedAt >= 0 && step >= this.solvedAt;
+  }
+
+  // the visited set after the given number of steps, written into dst if it
+  // is big enough
+  long[] visitedAt(int step, long[] dst) {
+    if (step < 0 || step > this.size) {
+      throw new IndexOutOfBoundsException("Step " + step + " of " + this.size);
+    }
+    long[] result = dst != null && dst.length == this.visited.length ? dst
+        : new long[this.visited.length];
+    int checkpoint = step / this.interval;
+    System.arraycopy(this.checkpoints.get(checkpoint), 0, result, 0, result.length);
+    for (int i = checkpoint * this.interval; i < step; i++) {
+      if (this.events[i] >= 0) {
+        ParallelBfs.set(result, this.events[i]);
+      }
+    }
+    return result;
+  }
+
+  // call flip with each cell whose visited flag differs between the given
+  // steps, going forward or backward through the log
+  void forEachChange(int from, int to, java.util.function.IntConsumer flip) {
+    for (int i = Math.min(from, to); i < Math.max(from, to); i++) {
+      if (this.events[i] >= 0) {
+        flip.accept(this.events[i]);
+      }
+    }
+  }
+}
+
+// to hold a large array of primitives outside the Java heap, as direct
+// buffers of up to 1 GB each, so the garbage collector never scans or moves
+// it. The memory is given back as soon as the buffer is closed; a JVM that
+// cannot do that cannot make these buffers at all, rather than quietly
+// leaving gigabytes for the collector. How much can be allocated in all is
+// capped by -XX:MaxDirectMemorySize
+class OffHeapBuffer implements IntArray, AutoCloseable {
+  // bytes in each buffer but the last, a multiple of 8 so nothing straddles two
+  static final int CHUNK_SHIFT = 30;
+  static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+  // frees a direct buffer now rather than when it is collected, or null if
+  // this JVM does not allow it, in which case MISSING says why
+  static final java.lang.reflect.Method FREE;
+  static final Object UNSAFE;
+  static final Throwable MISSING;
+
+  static {
+    java.lang.reflect.Method free = null;
+    Object unsafe = null;
+    Throwable missing = null;
+    try {
+      java.lang.reflect.Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = field.get(null);
+      free = unsafe.getClass().getMethod("invokeCleaner", java.nio.ByteBuffer.class);
+    }
+    catch (ReflectiveOperationException | RuntimeException e) {
+      missing = e;
+    }
+    FREE = free;
+    UNSAFE = unsafe;
+    MISSING = missing;
+  }
+
+  // the buffers holding the bytes, null once closed
+  java.nio.ByteBuffer[] chunks;
+  // number of bytes held
+  long size;
+
+  // allocate the given number of bytes, all 0
+  OffHeapBuffer(long size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("Invalid buffer size " + size);
+    }
+    if (FREE == null) {
+      throw new UnsupportedOperationException(
+          "This JVM cannot free direct buffers when they are closed", MISSING);
+    }
+    this.size = size;
+    this.chunks = new java.nio.ByteBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT)];
+    for (int i = 0; i < this.chunks.length; i++) {
+      int bytes = (int) Math.min(CHUNK_MASK + 1, size - ((long) i << CHUNK_SHIFT));
+      this.chunks[i] = java.nio.ByteBuffer.allocateDirect(bytes)
+          .order(java.nio.ByteOrder.nativeOrder());
+    }
+  }
+
+  // the byte at the given offset
+  byte getByte(long i) {
+    return this.chunks[(int) (i >>> CHUNK_SHIFT)].get((int) (i & CHUNK_MASK));
+  }
+
+  void putByte(long i, byte b) {
+    this.chunks[(int) (i >>> CHUNK_SHIFT)].put((int) (i & CHUNK_MASK), b);
+  }
+
+  // the int at the given index, counting in ints
+  int getInt(long i) {
+    long at = i << 2;
+    return this.chunks[(int) (at >>> CHUNK_SHIFT)].getInt((int) (at & CHUNK_MASK));
+  }
+
+  void putInt(long i, int v) {
+    long at = i << 2;
+    this.chunks[(int) (at >>> CHUNK_SHIFT)].putInt((int) (at & CHUNK_MASK), v);
+  }
+
+  // the number of whole ints held
+  public int length() {
+    return (int) Math.min(Integer.MAX_VALUE, this.size >>> 2);
+  }
+
+  public int get(int i) {
+    return this.getInt(i);
+  }
+
+  public void set(int i, int v) {
+    this.putInt(i, v);
+  }
+
+  // set every byte to 0
+  void clear() {
+    this.fill((byte) 0);
+  }
+
+  // set every byte to b
+  void fill(byte b) {
+    long word = (b & 0xFFL) * 0x0101010101010101L;
+    for (java.nio.ByteBuffer chunk : this.chunks) {
+      int i = 0;
+      for (; i + 8 <= chunk.capacity(); i += 8) {
+        chunk.putLong(i, word);
+      }
+      for (; i < chunk.capacity(); i++) {
+        chunk.put(i, b);
+      }
+    }
+  }
+
+  // give the memory back now; the buffer must not be used after this, and
+  // closing it again does nothing
+  public void close() {
+    if (this.chunks == null) {
+      return;
+    }
+    java.nio.ByteBuffer[] chunks = this.chunks;
+    this.chunks = null;
+    ReflectiveOperationException failed = null;
+    for (java.nio.ByteBuffer chunk : chunks) {
+      try {
+        FREE.invoke(UNSAFE, chunk);
+      }
+      catch (ReflectiveOperationException e) {
+        failed = e;
+      }
+    }
+    if (failed != null) {
+      throw new IllegalStateException("Could not free an off-heap buffer", failed);
+    }
+  }
+}
+
+// to represent a grid maze with its passages and solution kept off the heap,
+// a bit of each per edge and per cell, for mazes too big to leave to the
+// garbage collector. It is read and carved through MazeAccess, so it is
+// carved by GraphMaze.kruskal over an edge list shuffled as it is read, which
+// is the same as sorting random weights, solved by GraphSearch.breadthFirst
+// and drawn by MazeImageExporter, with their working arrays off the heap too
+class OffHeapMaze implements MazeAccess, AutoCloseable {
+  int width;
+  int height;
+  int cells;
+  // the edges to the right of each cell come first, row by row, then edge
+  // across + c is the one below cell c
+  int across;
+  int edges;
+  // one bit per edge, set for an open passage
+  OffHeapBuffer open;
+  // one bit per cell, set for the cells on the last path found
+  OffHeapBuffer path;
+
+  // an empty maze with every wall up
+  OffHeapMaze(int width, int height) {
+    MazeGraph.checkSize(width, height);
+    long cells = (long) width * height;
+    long edges = ((long) width - 1) * height + (long) width * (height - 1);
+    if (Math.max(cells, edges) > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many cells: " + width + "x" + height);
+    }
+    this.width = width;
+    this.height = height;
+    this.cells = (int) cells;
+    this.across = (width - 1) * height;
+    this.edges = (int) edges;
+    this.open = new OffHeapBuffer((edges + 7) >>> 3);
+    this.path = new OffHeapBuffer((cells + 7) >>> 3);
+  }
+
+  // a width by height perfect maze carved from the given seed
+  static OffHeapMaze generate(int width, int height, long seed) {
+    OffHeapMaze maze = new OffHeapMaze(width, height);
+    maze.carve(seed);
+    return maze;
+  }
+
+  // throw if this maze has been closed
+  void checkOpen() {
+    if (this.open.chunks == null) {
+      throw new IllegalStateException("The maze has been closed");
+    }
+  }
+
+  public int cellCount() {
+    return this.cells;
+  }
+
+  public int edgeCount() {
+    return this.edges;
+  }
+
+  public int edgeA(int e) {
+    return e < this.across ? e + e / (this.width - 1) : e - this.across;
+  }
+
+  public int edgeB(int e) {
+    return e < this.across ? this.edgeA(e) + 1 : e - this.across + this.width;
+  }
+
+  // slot i of a cell is its i-th side that is not on the border
+  public int firstSlot(int c) {
+    return 0;
+  }
+
+  public int endSlot(int c) {
+    int x = c % this.width;
+    int y = c / this.width;
+    return (x < this.width - 1 ? 1 : 0) + (y < this.height - 1 ? 1 : 0) + (x > 0 ? 1 : 0)
+        + (y > 0 ? 1 : 0);
+  }
+
+  public int slotTarget(int c, int i) {
+    switch (this.direction(c, i)) {
+      case 0:
+        return c + 1;
+      case 1:
+        return c + this.width;
+      case 2:
+        return c - 1;
+      default:
+        return c - this.width;
+    }
+  }
+
+  public int slotEdge(int c, int i) {
+    switch (this.direction(c, i)) {
+      case 0:
+        return c - c / this.width;
+      case 1:
+        return this.across + c;
+      case 2:
+        return c - 1 - c / this.width;
+      default:
+        return this.across + c - this.width;
+    }
+  }
+
+  // which way cell c's i-th neighbor is, 0 right, 1 down, 2 left or 3 up,
+  // counting only the sides that are not on the border
+  int direction(int c, int i) {
+    int x = c % this.width;
+    int y = c / this.width;
+    if (x < this.width - 1 && i-- == 0) {
+      return 0;
+    }
+    if (y < this.height - 1 && i-- == 0) {
+      return 1;
+    }
+    if (x > 0 && i-- == 0) {
+      return 2;
+    }
+    return 3;
+  }
+
+  public boolean isOpen(int e) {
+    this.checkOpen();
+    return (this.open.getByte(e >>> 3) & (1 << (e & 7))) != 0;
+  }
+
+  public void openEdge(int e) {
+    this.checkOpen();
+    this.open.putByte(e >>> 3, (byte) (this.open.getByte(e >>> 3) | (1 << (e & 7))));
+  }
+
+  public boolean isPassage(int a, int b) {
+    if (a > b) {
+      return this.isPassage(b, a);
+    }
+    if (b == a + 1 && b % this.width != 0) {
+      return this.isOpen(a - a / this.width);
+    }
+    return b == a + this.width && this.isOpen(this.across + a);
+  }
+
+  public int width() {
+    return this.width;
+  }
+
+  public int height() {
+    return this.height;
+  }
+
+  public int cellAt(int x, int y) {
+    return y * this.width + x;
+  }
+
+  // knock down the walls of a random spanning tree, shuffling the edges as
+  // Kruskal's algorithm takes them so it stops shuffling once the tree is done
+  void carve(long seed) {
+    this.checkOpen();
+    this.open.clear();
+    try (OffHeapBuffer order = new OffHeapBuffer(this.edges * 4L);
+        OffHeapBuffer parent = new OffHeapBuffer(this.cells * 4L);
+        OffHeapBuffer size = new OffHeapBuffer(this.cells * 4L)) {
+      for (int e = 0; e < this.edges; e++) {
+        order.set(e, e);
+      }
+      SplittableRandom random = new SplittableRandom(seed);
+      GraphMaze.kruskal(this, i -> {
+        int j = i + random.nextInt(this.edges - i);
+        int e = order.get(j);
+        order.set(j, order.get(i));
+        return e;
+      }, new UnionFind(parent, size, this.cells));
+    }
+  }
+
+  // find the shortest path from the top left to the bottom right cell and
+  // mark it, returning its number of cells, or 0 if there is none
+  long solve() {
+    this.checkOpen();
+    this.path.clear();
+    try (OffHeapBuffer cameFrom = new OffHeapBuffer(this.cells * 4L);
+        OffHeapBuffer queue = new OffHeapBuffer(this.cells * 4L)) {
+      // every byte all ones makes every entry -1, not yet reached
+      cameFrom.fill((byte) -1);
+      int target = this.cells - 1;
+      if (!GraphSearch.breadthFirst(this, 0, target, cameFrom, queue)) {
+        return 0;
+      }
+      long length = 1;
+      int c = target;
+      for (; cameFrom.get(c) != c; c = cameFrom.get(c), length++) {
+        this.markPath(c);
+      }
+      this.markPath(c);
+      return length;
+    }
+  }
+
+  // put cell c on the path
+  void markPath(int c) {
+    this.path.putByte(c >>> 3, (byte) (this.path.getByte(c >>> 3) | (1 << (c & 7))));
+  }
+
+  // is cell c on the last path found?
+  boolean onPath(int c) {
+    this.checkOpen();
+    return (this.path.getByte(c >>> 3) & (1 << (c & 7))) != 0;
+  }
+
+  // an exporter drawing the maze and the path found in strips on the given pool
+  MazeImageExporter exporter(int cellSize, java.util.concurrent.ExecutorService pool) {
+    this.checkOpen();
+    return new MazeImageExporter(this, this::onPath, cellSize, pool);
+  }
+
+  // the maze on the heap, for checking small ones against the other solvers
+  GraphMaze toGraphMaze() {
+    this.checkOpen();
+    MazeGraph g = MazeGraph.grid(this.width, this.height);
+    GraphMaze result = new GraphMaze(g);
+    for (int e = 0; e < this.edges; e++) {
+      if (this.isOpen(e)) {
+        int a = this.edgeA(e);
+        int b = this.edgeB(e);
+        result.openPassage(g.cellAt(a % this.width, a / this.width),
+            g.cellAt(b % this.width, b / this.width));
+      }
+    }
+    return result;
+  }
+
+  // free the passages and path now
+  public void close() {
+    this.open.close();
+    this.path.close();
+  }
+}
+
+// to number the cells of a width by height layout along a space filling
+// curve, so cells near each other in the layout get ids near each other and
+// a step up or down touches memory about as close as a step sideways. When
+// both sides are powers of two the layout is a row or column of squares, and
+// an id is the square's number followed by the distance along the Z-order
+// (Morton) or Hilbert curve inside it, worked out from the bits of x and y.
+// Other sizes rank cells by their place on the curve over the smallest power
+// of two square holding the layout, kept in tables so the ids have no gaps
+class CellOrder {
+  // the curves cells can be ordered along
+  static final int ROWS = 0;
+  static final int MORTON = 1;
+  static final int HILBERT = 2;
+
+  int width;
+  int height;
+  int curve;
+  // the side of the squares the curve runs through when there are no
+  // tables, as a power of two
+  int shift;
+  // for padded sizes, the id of the cell at y * width + x and the
+  // y * width + x of each id, otherwise null
+  int[] ids;
+  int[] places;
+
+  CellOrder(int width, int height, int curve) {
+    MazeGraph.checkSize(width, height);
+    if (curve < ROWS || curve > HILBERT) {
+      throw new IllegalArgumentException("Unknown curve " + curve);
+    }
+    this.width = width;
+    this.height = height;
+    this.curve = curve;
+    if (curve == ROWS || (Integer.bitCount(width) == 1 && Integer.bitCount(height) == 1)) {
+      this.shift = Integer.numberOfTrailingZeros(Math.min(width, height));
+      return;
+    }
+    int cells = width * height;
+    this.ids = new int[cells];
+    this.places = new int[cells];
+    // the curve's side and each cell's distance along it
+    int side = Integer.highestOneBit(Math.max(width, height) * 2 - 1);
+    long[] keys = new long[cells];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        keys[y * width + x] = CellOrder.key(curve, side, x, y);
+      }
+    }
+    // the keys are all different, so sorting them and decoding each gives the
+    // cells in curve order
+    Arrays.parallelSort(keys);
+    for (int id = 0; id < cells; id++) {
+      int xy = CellOrder.decode(curve, side, keys[id], width);
+      this.ids[xy] = id;
+      this.places[id] = xy;
+    }
+  }
+
+  // the id of the cell at the given coordinates
+  int id(int x, int y) {
+    if (this.ids != null) {
+      return this.ids[y * this.width + x];
+    }
+    if (this.curve == ROWS) {
+      return y * this.width + x;
+    }
+    // only one of x and y can be past the first square
+    int side = 1 << this.shift;
+    return ((x | y) >>> this.shift << (2 * this.shift))
+        | (int) CellOrder.key(this.curve, side, x & (side - 1), y & (side - 1));
+  }
+
+  // the column of the cell with the given id
+  int x(int id) {
+    if (this.ids != null) {
+      return this.places[id] % this.width;
+    }
+    if (this.curve == ROWS) {
+      return id % this.width;
+    }
+    int inSquare = this.inSquare(id);
+    int x = inSquare & ((1 << this.shift) - 1);
+    return this.width > this.height ? x + (id >>> (2 * this.shift) << this.shift) : x;
+  }
+
+  // the row of the cell with the given id
+  int y(int id) {
+    if (this.ids != null) {
+      return this.places[id] / this.width;
+    }
+    if (this.curve == ROWS) {
+      return id / this.width;
+    }
+    int y = this.inSquare(id) >>> this.shift;
+    return this.height > this.width ? y + (id >>> (2 * this.shift) << this.shift) : y;
+  }
+
+  // the cell with the given id within its square, as y * side + x
+  int inSquare(int id) {
+    int side = 1 << this.shift;
+    return CellOrder.decode(this.curve, side, id & (side * side - 1), side);
+  }
+
+  // the distance of (x, y) along the given curve
+  static long key(int curve, int side, int x, int y) {
+    if (curve == ROWS) {
+      return (long) y * side + x;
+    }
+    if (curve == MORTON) {
+      return CellOrder.spread(x) | (CellOrder.spread(y) << 1);
+    }
+    long d = 0;
+    for (int s = side >>> 1; s > 0; s >>>= 1) {
+      int rx = (x & s) > 0 ? 1 : 0;
+      int ry = (y & s) > 0 ? 1 : 0;
+      d += (long) s * s * ((3 * rx) ^ ry);
+      // turn the quadrant so the curve inside it lines up
+      if (ry == 0) {
+        if (rx == 1) {
+          x = s - 1 - x;
+          y = s - 1 - y;
+        }
+        int t = x;
+        x = y;
+        y = t;
+      }
+      x &= s - 1;
+      y &= s - 1;
+    }
+    return d;
+  }
+
+  // the cell, as y * width + x, at the given distance along the curve
+  static int decode(int curve, int side, long key, int width) {
+    int x;
+    int y;
+    if (curve == ROWS) {
+      x = (int) (key % side);
+      y = (int) (key / side);
+    }
+    else if (curve == MORTON) {
+      x = CellOrder.compact(key);
+      y = CellOrder.compact(key >>> 1);
+    }
+    else {
+      x = 0;
+      y = 0;
+      long d = key;
+      for (int s = 1; s < side; s <<= 1) {
+        int rx = (int) (1 & (d >>> 1));
+        int ry = (int) (1 & (d ^ rx));
+        if (ry == 0) {
+          if (rx == 1) {
+            x = s - 1 - x;
+            y = s - 1 - y;
+          }
+          int t = x;
+          x = y;
+          y = t;
+        }
+        x += s * rx;
+        y += s * ry;
+        d >>>= 2;
+      }
+    }
+    return y * width + x;
+  }
+
+  // the bits of v spread out to the even bit positions
+  static long spread(int v) {
+    long r = v & 0xFFFFFFFFL;
+    r = (r | (r << 16)) & 0x0000FFFF0000FFFFL;
+    r = (r | (r << 8)) & 0x00FF00FF00FF00FFL;
+    r = (r | (r << 4)) & 0x0F0F0F0F0F0F0F0FL;
+    r = (r | (r << 2)) & 0x3333333333333333L;
+    r = (r | (r << 1)) & 0x5555555555555555L;
+    return r;
+  }
+
+  // the even bits of v packed together, undoing spread
+  static int compact(long v) {
+    long r = v & 0x5555555555555555L;
+    r = (r | (r >>> 1)) & 0x3333333333333333L;
+    r = (r | (r >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+    r = (r | (r >>> 4)) & 0x00FF00FF00FF00FFL;
+    r = (r | (r >>> 8)) & 0x0000FFFF0000FFFFL;
+    r = (r | (r >>> 16)) & 0x00000000FFFFFFFFL;
+    return (int) r;
+  }
+}
+
+// to keep the distance from every cell to the target, and so the solution,
+// up to date while passages are opened and closed. Each cell points to the
+// neighbor it reaches the target through, forming a tree of shortest paths.
+// Opening a passage lets cells that get closer spread the news outward from
+// it; closing a passage on the tree cuts off the branch hanging from it, and
+// only that branch is searched again, starting from the cells around it that
+// kept their way out. Edits far from the target touch only a few cells
+class DynamicMaze {
+  // distance of unreachable cells
+  static final int UNREACHED = Integer.MAX_VALUE;
+
+  // the maze, whose passages this changes
+  GraphMaze maze;
+  // the cheapest cost from each cell to the target, UNREACHED if there is no way
+  int[] dist;
+  // the next cell on the way to the target, the target itself for the
+  // target, or -1 if there is no way
+  int[] toward;
+  // cells whose distance is being repaired
+  IndexedHeap open;
+  // the branch cut off by the last passage closed
+  int[] branch;
+  // is each cell in the branch being repaired?
+  long[] inBranch;
+  // number of cells whose distance the last edit looked at
+  int touched = 0;
+
+  // measure every cell's distance to the maze's target
+  DynamicMaze(GraphMaze maze) {
+    int cells = maze.graph.cells;
+    this.maze = maze;
+    this.dist = new int[cells];
+    this.toward = new int[cells];
+    this.open = new IndexedHeap(cells);
+    this.branch = new int[cells];
+    this.inBranch = new long[(cells + 63) >>> 6];
+    this.rebuild();
+  }
+
+  // measure every distance from scratch
+  void rebuild() {
+    Arrays.fill(this.dist, UNREACHED);
+    Arrays.fill(this.toward, -1);
+    this.open.clear();
+    this.dist[this.maze.target] = 0;
+    this.toward[this.maze.target] = this.maze.target;
+    this.open.push(this.maze.target, 0);
+    this.touched = 0;
+    this.settle();
+  }
+
+  // open or close the passage between two neighboring cells, returning false
+  // if they are not neighbors
+  boolean setPassage(int a, int b, boolean open) {
+    MazeGraph g = this.maze.graph;
+    for (int s = g.offsets[a]; s < g.offsets[a + 1]; s++) {
+      if (g.targets[s] == b) {
+        if (open) {
+          this.open(g.slotEdges[s]);
+        }
+        else {
+          this.close(g.slotEdges[s]);
+        }
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // open passage e and bring closer every cell it gives a shorter way out
+  void open(int e) {
+    if (this.maze.isOpen(e)) {
+      return;
+    }
+    this.maze.openEdge(e);
+    this.touched = 0;
+    int a = this.maze.graph.edgeA[e];
+    int b = this.maze.graph.edgeB[e];
+    int cost = this.maze.cost(e);
+    this.relax(a, b, cost);
+    this.relax(b, a, cost);
+    this.settle();
+  }
+
+  // close passage e and measure again the cells that went out through it
+  void close(int e) {
+    if (!this.maze.isOpen(e)) {
+      return;
+    }
+    this.maze.closeEdge(e);
+    this.touched = 0;
+    MazeGraph g = this.maze.graph;
+    int a = g.edgeA[e];
+    int b = g.edgeB[e];
+    int cut = this.toward[a] == b ? a : this.toward[b] == a ? b : -1;
+    if (cut < 0) {
+      // no way out went through it, so no distance changes
+      return;
+    }
+
+    // gather the branch: cut and every cell whose way out leads through it
+    int size = 0;
+    this.branch[size++] = cut;
+    ParallelBfs.set(this.inBranch, cut);
+    for (int i = 0; i < size; i++) {
+      int c = this.branch[i];
+      for (int s = g.offsets[c]; s < g.offsets[c + 1]; s++) {
+        int n = g.targets[s];
+        if (this.toward[n] == c && this.maze.isOpen(g.slotEdges[s])
+            && !ParallelBfs.get(this.inBranch, n)) {
+          ParallelBfs.set(this.inBranch, n);
+          this.branch[size++] = n;
+        }
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      this.dist[this.branch[i]] = UNREACHED;
+      this.toward[this.branch[i]] = -1;
+    }
+    // start each branch cell from its best neighbor outside the branch
+    for (int i = 0; i < size; i++) {
+      int c = this.branch[i];
+      for (int s = g.offsets[c]; s < g.offsets[c + 1]; s++) {
+        int n = g.targets[s];
+        if (!ParallelBfs.get(this.inBranch, n) && this.maze.isOpen(g.slotEdges[s])) {
+          this.relax(n, c, this.maze.cost(g.slotEdges[s]));
+        }
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      this.inBranch[this.branch[i] >>> 6] = 0;
+    }
+    this.touched += size;
+    this.settle();
+  }
+
+  // let cell to go out through cell from if that is shorter than its way now
+  void relax(int from, int to, int cost) {
+    if (this.dist[from] != UNREACHED && this.dist[from] + cost < this.dist[to]) {
+      this.dist[to] = this.dist[from] + cost;
+      this.toward[to] = from;
+      this.open.push(to, this.dist[to]);
+    }
+  }
+
+  // spread the shorter distances queued until none is left to improve
+  void settle() {
+    MazeGraph g = this.maze.graph;
+    while (!this.open.isEmpty()) {
+      int c = this.open.pop();
+      this.touched++;
+      for (int s = g.offsets[c]; s < g.offsets[c + 1]; s++) {
+        if (this.maze.isOpen(g.slotEdges[s])) {
+          this.relax(c, g.targets[s], this.maze.cost(g.slotEdges[s]));
+        }
+      }
+    }
+  }
+
+  // the path from the start to the target as cells from the target back to
+  // the start, as GraphSearch returns them, or an empty array if there is none
+  int[] path() {
+    int c = this.maze.start;
+    if (this.dist[c] == UNREACHED) {
+      return new int[0];
+    }
+    int length = 1;
+    for (; c != this.maze.target; c = this.toward[c]) {
+      length++;
+    }
+    int[] result = new int[length];
+    c = this.maze.start;
+    for (int i = length - 1; i >= 0; i--) {
+      result[i] = c;
+      c = this.toward[c];
+    }
+    return result;
+  }
+}
+
+// to answer many path queries on one large grid maze quickly, as in
+// hierarchical pathfinding (HPA*). The grid is cut into square clusters; the
+// cells on either side of each passage across a cluster border become the
+// nodes of a small abstract graph, joined by those passages and by the
+// cheapest path inside a cluster between every two of its nodes. A query
+// searches the start's and target's clusters, runs A* over the abstract
+// graph between them, then fills in each hop with a search inside one cluster
+class HierarchicalMaze {
+  // the maze, carved into a grid in any cell order
+  GraphMaze maze;
+  // cells along each side of a cluster
+  int size;
+  int clustersX;
+  int clustersY;
+  // the abstract node of each cell, or -1 for cells on no passage across a border
+  int[] nodeOf;
+  // the cell of each abstract node
+  int[] nodeCell;
+  // the nodes of each cluster are clusterNodes[clusterFirst[k]] up to clusterFirst[k + 1]
+  int[] clusterFirst;
+  int[] clusterNodes;
+  // the abstract graph and the cost of each of its edges
+  MazeGraph graph;
+  int[] costs;
+  // the cheapest cost of any passage, for the A* estimate, 0 where the
+  // layout lets edges jump across the maze
+  int stepCost;
+
+  // search state for queries: two cluster searches and the abstract search,
+  // whose entries count only if stamped with the current query
+  ClusterSearch fromStart;
+  ClusterSearch toTarget;
+  int[] g;
+  int[] cameFrom;
+  int[] stamp;
+  int query = 0;
+  IndexedHeap open;
+  // abstract nodes settled by the last query
+  int expanded = 0;
+  // the cells of the last path found, from the start on
+  int[] route = new int[64];
+  int routeLength = 0;
+
+  // cut the maze into clusters of the given size and build the abstract
+  // graph, searching the clusters in parallel on the common pool
+  HierarchicalMaze(GraphMaze maze, int size) {
+    this(maze, size, java.util.concurrent.ForkJoinPool.commonPool());
+  }
+
+  HierarchicalMaze(GraphMaze maze, int size, java.util.concurrent.ForkJoinPool pool) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Invalid cluster size " + size);
+    }
+    MazeGraph mg = maze.graph;
+    this.maze = maze;
+    this.size = size;
+    this.clustersX = (mg.width + size - 1) / size;
+    this.clustersY = (mg.height + size - 1) / size;
+    this.stepCost = Integer.MAX_VALUE;
+    for (int e = 0; e < mg.edgeCount(); e++) {
+      this.stepCost = Math.min(this.stepCost, maze.cost(e));
+    }
+    if (!mg.local) {
+      this.stepCost = 0;
+    }
+
+    // every passage across a border is an abstract edge between its two cells
+    this.nodeOf = GraphSearch.unvisited(mg.cells);
+    int[] crossings = new int[16];
+    int crossingCount = 0;
+    IntPairList cells = new IntPairList(16);
+    int nodes = 0;
+    for (int e = 0; e < mg.edgeCount(); e++) {
+      int a = mg.edgeA[e];
+      int b = mg.edgeB[e];
+      if (maze.isOpen(e) && this.clusterOf(a) != this.clusterOf(b)) {
+        for (int c : new int[] { a, b }) {
+          if (this.nodeOf[c] < 0) {
+            this.nodeOf[c] = nodes++;
+            cells.add(c, this.clusterOf(c));
+          }
+        }
+        if (crossingCount == crossings.length) {
+          crossings = Arrays.copyOf(crossings, crossingCount * 2);
+        }
+        crossings[crossingCount++] = e;
+      }
+    }
+    this.nodeCell = cells.firsts();
+    // group the nodes by cluster
+    int clusters = this.clustersX * this.clustersY;
+    int[] clusterOfNode = cells.seconds();
+    this.clusterFirst = new int[clusters + 1];
+    for (int k : clusterOfNode) {
+      this.clusterFirst[k + 1]++;
+    }
+    for (int k = 0; k < clusters; k++) {
+      this.clusterFirst[k + 1] += this.clusterFirst[k];
+    }
+    this.clusterNodes = new int[nodes];
+    int[] fill = Arrays.copyOf(this.clusterFirst, clusters);
+    for (int n = 0; n < nodes; n++) {
+      this.clusterNodes[fill[clusterOfNode[n]]++] = n;
+    }
+
+    // the cheapest way between every two nodes of each cluster, as triples
+    // of node, node and cost
+    int[][] inside = new int[clusters][];
+    pool.submit(() -> java.util.stream.IntStream.range(0, clusters).parallel().forEach(k -> {
+      inside[k] = this.clusterEdges(k);
+    })).join();
+    int count = crossingCount;
+    for (int[] triples : inside) {
+      count += triples.length / 3;
+    }
+    int[] edgeA = new int[count];
+    int[] edgeB = new int[count];
+    this.costs = new int[count];
+    int i = 0;
+    for (; i < crossingCount; i++) {
+      edgeA[i] = this.nodeOf[mg.edgeA[crossings[i]]];
+      edgeB[i] = this.nodeOf[mg.edgeB[crossings[i]]];
+      this.costs[i] = maze.cost(crossings[i]);
+    }
+    for (int[] triples : inside) {
+      for (int t = 0; t < triples.length; t += 3, i++) {
+        edgeA[i] = triples[t];
+        edgeB[i] = triples[t + 1];
+        this.costs[i] = triples[t + 2];
+      }
+    }
+    this.graph = new MazeGraph(nodes, nodes, 1, edgeA, edgeB);
+
+    this.fromStart = new ClusterSearch(this);
+    this.toTarget = new ClusterSearch(this);
+    this.g = new int[nodes];
+    this.cameFrom = new int[nodes];
+    this.stamp = new int[nodes];
+    this.open = new IndexedHeap(nodes);
+  }
+
+  // the cluster holding cell c
+  int clusterOf(int c) {
+    return (this.maze.graph.cellY(c) / this.size) * this.clustersX
+        + this.maze.graph.cellX(c) / this.size;
+  }
+
+  // the abstract edges inside cluster k, as triples of node, node and cost
+  int[] clusterEdges(int k) {
+    ClusterSearch search = new ClusterSearch(this);
+    int first = this.clusterFirst[k];
+    int last = this.clusterFirst[k + 1];
+    int[] triples = new int[48];
+    int length = 0;
+    for (int i = first; i < last; i++) {
+      int a = this.clusterNodes[i];
+      search.run(this.nodeCell[a]);
+      for (int j = i + 1; j < last; j++) {
+        int b = this.clusterNodes[j];
+        int d = search.distanceTo(this.nodeCell[b]);
+        if (d != Integer.MAX_VALUE) {
+          if (length == triples.length) {
+            triples = Arrays.copyOf(triples, length * 2);
+          }
+          triples[length++] = a;
+          triples[length++] = b;
+          triples[length++] = d;
+        }
+      }
+    }
+    return Arrays.copyOf(triples, length);
+  }
+
+  // the A* estimate of the cost from cell c to cell to
+  int estimate(int c, int to) {
+    MazeGraph mg = this.maze.graph;
+    return this.stepCost * Math.max(Math.abs(mg.cellX(c) - mg.cellX(to)),
+        Math.abs(mg.cellY(c) - mg.cellY(to)));
+  }
+
+  // find the cheapest path between two cells, returning the cells from the
+  // end back to the start as GraphSearch does, or an empty array if there is none
+  int[] findPath(int from, int to) {
+    this.query++;
+    this.expanded = 0;
+    this.open.clear();
+    this.fromStart.run(from);
+    this.toTarget.run(to);
+    int targetCluster = this.clusterOf(to);
+    // the best way found so far, and the last abstract node on it, or -1 for
+    // the way that stays inside one cluster
+    int best = this.clusterOf(from) == targetCluster ? this.fromStart.distanceTo(to)
+        : Integer.MAX_VALUE;
+    int via = -1;
+    int k = this.clusterOf(from);
+    for (int i = this.clusterFirst[k]; i < this.clusterFirst[k + 1]; i++) {
+      int n = this.clusterNodes[i];
+      int d = this.fromStart.distanceTo(this.nodeCell[n]);
+      if (d != Integer.MAX_VALUE) {
+        this.reach(n, d, -1, to);
+      }
+    }
+    while (!this.open.isEmpty() && this.open.prio[this.open.heap[0]] < best) {
+      int n = this.open.pop();
+      this.expanded++;
+      if (this.clusterOf(this.nodeCell[n]) == targetCluster) {
+        int rest = this.toTarget.distanceTo(this.nodeCell[n]);
+        if (rest != Integer.MAX_VALUE && this.g[n] + rest < best) {
+          best = this.g[n] + rest;
+          via = n;
+        }
+      }
+      for (int s = this.graph.offsets[n]; s < this.graph.offsets[n + 1]; s++) {
+        int m = this.graph.targets[s];
+        int d = this.g[n] + this.costs[this.graph.slotEdges[s]];
+        if (this.stamp[m] != this.query || d < this.g[m]) {
+          this.reach(m, d, n, to);
+        }
+      }
+    }
+    if (best == Integer.MAX_VALUE) {
+      return new int[0];
+    }
+    return this.refine(to, via);
+  }
+
+  // record a cheaper way to abstract node n and queue it
+  void reach(int n, int d, int parent, int to) {
+    this.stamp[n] = this.query;
+    this.g[n] = d;
+    this.cameFrom[n] = parent;
+    this.open.push(n, d + this.estimate(this.nodeCell[n], to));
+  }
+
+  // the cells of the path through the abstract nodes ending at via, from
+  // the end back to the start
+  int[] refine(int to, int via) {
+    this.routeLength = 0;
+    if (via < 0) {
+      this.append(this.fromStart.trace(to), true);
+    }
+    else {
+      // the abstract nodes from the start's cluster to via
+      int hops = 0;
+      for (int n = via; n >= 0; n = this.cameFrom[n]) {
+        hops++;
+      }
+      int[] nodes = new int[hops];
+      for (int n = via, i = hops - 1; n >= 0; n = this.cameFrom[n], i--) {
+        nodes[i] = n;
+      }
+      this.append(this.fromStart.trace(this.nodeCell[nodes[0]]), true);
+      for (int i = 1; i < hops; i++) {
+        int a = this.nodeCell[nodes[i - 1]];
+        int b = this.nodeCell[nodes[i]];
+        if (this.clusterOf(a) != this.clusterOf(b)) {
+          this.append(new int[] { b }, false);
+        }
+        else {
+          // the start's search is no longer needed, so reuse it
+          this.fromStart.run(a, b);
+          this.append(this.fromStart.trace(b), true);
+        }
+      }
+      this.append(this.toTarget.trace(this.nodeCell[via]), false);
+    }
+    int[] result = new int[this.routeLength];
+    for (int i = 0; i < this.routeLength; i++) {
+      result[i] = this.route[this.routeLength - 1 - i];
+    }
+    return result;
+  }
+
+  // add the given cells to the end of the route, backward if asked, leaving
+  // out the first one added if the route already ends with it
+  void append(int[] cells, boolean backward) {
+    for (int i = 0; i < cells.length; i++) {
+      int c = cells[backward ? cells.length - 1 - i : i];
+      if (i == 0 && this.routeLength > 0 && this.route[this.routeLength - 1] == c) {
+        continue;
+      }
+      if (this.routeLength == this.route.length) {
+        this.route = Arrays.copyOf(this.route, this.routeLength * 2);
+      }
+      this.route[this.routeLength++] = c;
+    }
+  }
+}
+
+// to search inside one cluster of a HierarchicalMaze, never leaving it.
+// Cells are kept by their place in the cluster, so the buffers are the
+// size of one cluster however large the maze
+class ClusterSearch {
+  // the maze and its clusters
+  HierarchicalMaze owner;
+  // the cluster searched and where it starts
+  int cluster;
+  int left;
+  int top;
+  // the cheapest cost to each cell of the cluster, and where it came from
+  int[] dist;
+  int[] cameFrom;
+  IndexedHeap open;
+
+  ClusterSearch(HierarchicalMaze owner) {
+    int area = owner.size * owner.size;
+    this.owner = owner;
+    this.dist = new int[area];
+    this.cameFrom = new int[area];
+    this.open = new IndexedHeap(area);
+  }
+
+  // the place in the cluster of cell c, or -1 if c is outside it
+  int local(int c) {
+    MazeGraph g = this.owner.maze.graph;
+    int x = g.cellX(c) - this.left;
+    int y = g.cellY(c) - this.top;
+    int s = this.owner.size;
+    return x < 0 || y < 0 || x >= s || y >= s ? -1 : y * s + x;
+  }
+
+  // find the cheapest way from cell from to every cell of its cluster
+  void run(int from) {
+    this.run(from, -1);
+  }
+
+  // find the cheapest way from cell from to cell to, or to every cell of the
+  // cluster if to is -1
+  void run(int from, int to) {
+    GraphMaze maze = this.owner.maze;
+    MazeGraph g = maze.graph;
+    this.cluster = this.owner.clusterOf(from);
+    this.left = this.cluster % this.owner.clustersX * this.owner.size;
+    this.top = this.cluster / this.owner.clustersX * this.owner.size;
+    Arrays.fill(this.dist, Integer.MAX_VALUE);
+    this.open.clear();
+    int start = this.local(from);
+    this.dist[start] = 0;
+    this.cameFrom[start] = from;
+    this.open.push(start, 0);
+    while (!this.open.isEmpty()) {
+      int i = this.open.pop();
+      int c = this.cellAt(i);
+      if (c == to) {
+        return;
+      }
+      for (int s = g.offsets[c]; s < g.offsets[c + 1]; s++) {
+        int e = g.slotEdges[s];
+        int j = this.local(g.targets[s]);
+        if (j >= 0 && maze.isOpen(e) && this.dist[i] + maze.cost(e) < this.dist[j]) {
+          this.dist[j] = this.dist[i] + maze.cost(e);
+          this.cameFrom[j] = c;
+          this.open.push(j, this.dist[j]);
+        }
+      }
+    }
+  }
+
+  // the cell at place i in the cluster
+  int cellAt(int i) {
+    int s = this.owner.size;
+    return this.owner.maze.graph.cellAt(this.left + i % s, this.top + i / s);
+  }
+
+  // the cost of the last search's way to cell c, MAX_VALUE if it is out of
+  // the cluster or unreached
+  int distanceTo(int c) {
+    int i = this.local(c);
+    return i < 0 ? Integer.MAX_VALUE : this.dist[i];
+  }
+
+  // the cells from cell c back to the last search's start
+  int[] trace(int c) {
+    int length = 1;
+    for (int x = c; this.cameFrom[this.local(x)] != x; x = this.cameFrom[this.local(x)]) {
+      length++;
+    }
+    int[] result = new int[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = c;
+      c = this.cameFrom[this.local(c)];
+    }
+    return result;
+  }
+}
+
+// to represent a maze that goes on forever in every direction. It is made of
+// square tiles, each a perfect maze carved from a seed mixed from the maze's
+// seed and the tile's place, with one passage through each tile border at a
+// place mixed the same way from the border's place, so a tile comes out the
+// same however often it is rebuilt and both sides of a border agree on it.
+// Only the tiles used most recently are kept, so memory stays bounded
+class InfiniteMaze {
+  // sides of a tile, for mixing seeds
+  static final int EAST = 0;
+  static final int SOUTH = 1;
+  static final int CARVE = 2;
+
+  long seed;
+  // cells along each side of a tile
+  int tileSize;
+  // the most tiles kept at once
+  int maxTiles;
+  // the grid every tile is carved into
+  MazeGraph grid;
+  // the weights, order and sets tiles are carved with, kept between tiles
+  int[] weights;
+  long[] order;
+  UnionFind sets;
+  // the tiles used most recently, by tileKey, oldest first
+  LinkedHashMap<Long, GraphMaze> tiles;
+  // number of tiles carved and thrown away so far
+  int built = 0;
+  int evicted = 0;
+
+  InfiniteMaze(long seed, int tileSize, int maxTiles) {
+    if (tileSize < 1 || maxTiles < 1) {
+      throw new IllegalArgumentException("Invalid tile size " + tileSize + " or cap " + maxTiles);
+    }
+    this.seed = seed;
+    this.tileSize = tileSize;
+    this.maxTiles = maxTiles;
+    this.grid = MazeGraph.grid(tileSize, tileSize);
+    this.weights = new int[this.grid.edgeCount()];
+    this.order = new long[this.grid.edgeCount()];
+    this.sets = new UnionFind(this.grid.cells);
+    this.tiles = new LinkedHashMap<Long, GraphMaze>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<Long, GraphMaze> eldest) {
+        if (this.size() > InfiniteMaze.this.maxTiles) {
+          InfiniteMaze.this.evicted++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  // a seed for the given use of the tile at (tx, ty)
+  long mix(int tx, int ty, int use) {
+    long h = new SplittableRandom(this.seed + tx * 0x9E3779B97F4A7C15L).nextLong();
+    return new SplittableRandom(h + ty * 0xC2B2AE3D27D4EB4FL + use).nextLong();
+  }
+
+  // the key of the tile at (tx, ty) in tiles
+  static long tileKey(int tx, int ty) {
+    return ((long) tx << 32) | (ty & 0xFFFFFFFFL);
+  }
+
+  // the tile at (tx, ty), carved again if it is not kept. A tile is small,
+  // so it is carved on this thread rather than handed to a pool
+  GraphMaze tile(int tx, int ty) {
+    long key = InfiniteMaze.tileKey(tx, ty);
+    GraphMaze result = this.tiles.get(key);
+    if (result == null) {
+      this.grid.randomWeights(this.mix(tx, ty, CARVE), this.weights);
+      result = GraphMaze.kruskal(new GraphMaze(this.grid), this.weights, this.order, this.sets);
+      this.built++;
+      this.tiles.put(key, result);
+    }
+    return result;
+  }
+
+  // where along the given side of tile (tx, ty) its border passage is
+  int opening(int tx, int ty, int side) {
+    return new SplittableRandom(this.mix(tx, ty, side)).nextInt(this.tileSize);
+  }
+
+  // the tile holding column or row v
+  int tileOf(int v) {
+    return Math.floorDiv(v, this.tileSize);
+  }
+
+  // is there a passage from cell (x, y) to the cell one step away by (dx, dy)?
+  boolean canMove(int x, int y, int dx, int dy) {
+    if (Math.abs(dx) + Math.abs(dy) != 1) {
+      return false;
+    }
+    if (dx < 0 || dy < 0) {
+      // look from the other side, so only steps right and down need checking
+      return this.canMove(x + dx, y + dy, -dx, -dy);
+    }
+    int tx = this.tileOf(x);
+    int ty = this.tileOf(y);
+    int lx = x - tx * this.tileSize;
+    int ly = y - ty * this.tileSize;
+    if (dx == 1 && lx == this.tileSize - 1) {
+      return ly == this.opening(tx, ty, EAST);
+    }
+    if (dy == 1 && ly == this.tileSize - 1) {
+      return lx == this.opening(tx, ty, SOUTH);
+    }
+    return this.tile(tx, ty).isPassage(this.grid.cellAt(lx, ly),
+        this.grid.cellAt(lx + dx, ly + dy));
+  }
+
+  // carve the tiles holding the width by height cells from (left, top),
+  // and the ring of tiles around them, ahead of time
+  void prepareView(int left, int top, int width, int height) {
+    for (int ty = this.tileOf(top) - 1; ty <= this.tileOf(top + height - 1) + 1; ty++) {
+      for (int tx = this.tileOf(left) - 1; tx <= this.tileOf(left + width - 1) + 1; tx++) {
+        this.tile(tx, ty);
+      }
+    }
+  }
+
+  // the most tiles prepareView can carve for a view of the given size
+  static int viewTiles(int width, int height, int tileSize) {
+    // a run of n cells touches at most (n - 2) / tileSize + 2 tiles
+    return ((width - 2) / tileSize + 4) * ((height - 2) / tileSize + 4);
+  }
+}
+
+// to represent a world exploring an InfiniteMaze, showing the cells around the
+// player and carving the tiles ahead of them as they walk
+class EndlessWorld extends World {
+  // the maze explored
+  InfiniteMaze maze;
+  // the player's cell
+  int x = 0;
+  int y = 0;
+  // cells walked
+  long steps = 0;
+
+  // cells along each side of a tile
+  static final int TILE = 16;
+
+  EndlessWorld(long seed) {
+    // room for twice the tiles in and around the view, so the ones just
+    // walked out of are still kept when the player turns back
+    this.maze = new InfiniteMaze(seed, TILE,
+        2 * InfiniteMaze.viewTiles(MazeWorld.WORLDWIDTH, MazeWorld.WORLDHEIGHT, TILE));
+    this.prepare();
+  }
+
+  // carve the tiles in and around the view ahead of time
+  void prepare() {
+    this.maze.prepareView(this.x - MazeWorld.WORLDWIDTH / 2, this.y - MazeWorld.WORLDHEIGHT / 2,
+        MazeWorld.WORLDWIDTH, MazeWorld.WORLDHEIGHT);
+  }
+
+  // move the player with the arrow keys where there are passages
+  public void onKeyEvent(String s) {
+    int dx = s.equals("left") ? -1 : s.equals("right") ? 1 : 0;
+    int dy = s.equals("up") ? -1 : s.equals("down") ? 1 : 0;
+    if ((dx != 0 || dy != 0) && this.maze.canMove(this.x, this.y, dx, dy)) {
+      this.x += dx;
+      this.y += dy;
+      this.steps++;
+      this.prepare();
+    }
+  }
+
+  // draw the cells in view, centered on the player
+  public WorldScene makeScene() {
+    WorldScene bg = new WorldScene(600, 800);
+    int w = MazeWorld.EDGEWIDTH;
+    int h = MazeWorld.EDGEHEIGHT;
+    int left = this.x - MazeWorld.WORLDWIDTH / 2;
+    int top = this.y - MazeWorld.WORLDHEIGHT / 2;
+    Color floor = new Color(192, 192, 192);
+    Color wall = new Color(102, 102, 102);
+    for (int j = 0; j < MazeWorld.WORLDHEIGHT; j++) {
+      for (int i = 0; i < MazeWorld.WORLDWIDTH; i++) {
+        int px = i * w + w / 2;
+        int py = j * h + h / 2;
+        bg.placeImageXY(new RectangleImage(w, h, "solid", floor), px, py);
+        if (!this.maze.canMove(left + i, top + j, 1, 0)) {
+          bg.placeImageXY(new RectangleImage(2, h, "solid", wall), px + w / 2, py);
+        }
+        if (!this.maze.canMove(left + i, top + j, 0, 1)) {
+          bg.placeImageXY(new RectangleImage(w, 2, "solid", wall), px, py + h / 2);
+        }
+      }
+    }
+    new Player(new Node(this.x - left, this.y - top)).draw(bg);
+    String msg = "At " + this.x + ", " + this.y + " after " + this.steps + " steps, "
+        + this.maze.tiles.size() + " tiles kept";
+    bg.placeImageXY(new TextImage(msg, Color.black), 400, 610);
+    return bg;
+  }
+
+  // run this world
+  boolean play() {
+    return this.bigBang(800, 620);
+  }
+}
+
+// to generate and solve maze after maze without making garbage: the grid,
+// the maze's passage bits, the edge weights and their order, the union-find
+// arrays and the search buffers are all kept from one maze to the next and
+// only grown when a bigger maze needs them, so batch and bot workloads
+// resetting thousands of times a second allocate nothing per maze. Mazes
+// come out the same as GraphMaze.kruskal(g, g.randomWeights(seed)). Only
+// GraphMaze loops reset this way: the world's "n" swaps in a biased or
+// braided maze of Nodes and Edges made on a MazePrefetcher thread, which is
+// new objects every time
+class MazeWorkspace {
+  // the grid and the maze carved into it, laid out again for each size
+  MazeGraph graph = null;
+  GraphMaze maze = null;
+  // the weight of each edge, and the edges packed below their weights in order
+  int[] weights = new int[0];
+  long[] order = new long[0];
+  UnionFind sets = new UnionFind(0);
+  // the edges in order for Kruskal's algorithm, made once so carving allocates nothing
+  java.util.function.IntUnaryOperator byWeight = i -> (int) this.order[i];
+  // the breadth-first search's queue and parent links
+  int[] queue = new int[0];
+  int[] cameFrom = new int[0];
+  IntArray queueInts = new HeapIntArray(this.queue);
+  IntArray cameFromInts = new HeapIntArray(this.cameFrom);
+  // the last path found, from the end back to the start
+  int[] path = new int[0];
+  int pathLength = 0;
+  // number of times a buffer had to be made bigger
+  int regrown = 0;
+
+  // carve a perfect width by height maze from the given seed, reusing this
+  // workspace's maze, which is returned
+  GraphMaze generate(int width, int height, long seed) {
+    if (this.graph == null) {
+      this.graph = MazeGraph.grid(width, height);
+      this.regrown++;
+    }
+    else if ((this.graph.width != width || this.graph.height != height)
+        && this.graph.layGrid(width, height)) {
+      this.regrown++;
+    }
+    MazeGraph g = this.graph;
+    int edges = g.edgeCount();
+    if (this.maze == null || this.maze.open.length < (edges + 63) >>> 6) {
+      this.maze = new GraphMaze(g);
+      this.regrown++;
+    }
+    if (this.weights.length < edges) {
+      this.weights = new int[edges];
+      this.order = new long[edges];
+      this.regrown++;
+    }
+    g.randomWeights(seed, this.weights);
+    this.maze.reset();
+    GraphMaze.sortByWeight(this.weights, edges, this.order);
+    GraphMaze.kruskal(this.maze, this.byWeight, this.sets);
+    return this.maze;
+  }
+
+  // find the path from the maze's start to its target with breadth-first
+  // search into this workspace's buffers, returning its number of cells, 0 if
+  // there is none; the cells are path[0] for the target to
+  // path[pathLength - 1] for the start
+  int solve() {
+    MazeGraph g = this.graph;
+    if (this.queue.length < g.cells) {
+      this.queue = new int[g.cells];
+      this.cameFrom = new int[g.cells];
+      this.path = new int[g.cells];
+      this.queueInts = new HeapIntArray(this.queue);
+      this.cameFromInts = new HeapIntArray(this.cameFrom);
+      this.regrown++;
+    }
+    Arrays.fill(this.cameFrom, 0, g.cells, -1);
+    this.pathLength = 0;
+    if (GraphSearch.breadthFirst(this.maze, this.maze.start, this.maze.target,
+        this.cameFromInts, this.queueInts)) {
+      this.pathLength = GraphSearch.reconstruct(this.cameFrom, this.maze.target, this.path);
+    }
+    return this.pathLength;
+  }
+}
+
+// to hold tests and examples for MazeWorlds
+// some tests assume a 15x20 world
+class ExamplesMazeWorld {
+  Node n1;
+  Node n2;
+  Node n3;
+  Node n4;
+  Node n5;
+  Node n6;
+  Node n7;
+  Node n8;
+  Node n9;
+  Node n10;
+
+  Edge e12;
+  Edge e23;
+  Edge e45;
+  Edge e56;
+  Edge e78;
+  Edge e89;
+  Edge e14;
+  Edge e25;
+  Edge e36;
+  Edge e47;
+  Edge e58;
+  Edge e69;
+
+  Player p1;
+
+  MazeWorld maze = new MazeWorld();
+
+  // Example of a MazeWorld
+  MazeWorld mw;
+  MazeWorld myWorld;
+
+  // Example of EdgeComparator
+  Comparator<Edge> edgeComp = new EdgeComparator();
+
+  // Example of ArrayList of Edges
+  ArrayList<Edge> edgeList;
+
+  // Examples of ArrayList of Nodes
+  ArrayList<Node> l1;
+  ArrayList<Node> l2;
+  ArrayList<Node> l3;
+
+  // Example of a 2D ArrayList of Nodes
+  ArrayList<ArrayList<Node>> nodeList;
+
+  // Example of HashMap<String, String>
+  HashMap<String, String> hash = new HashMap<String, String>();
+  HashMap<String, String> hash2 = new HashMap<String, String>();
+
+  // Example of HashMap<String, Edge>
+  HashMap<String, Edge> hash3 = new HashMap<String, Edge>();
+
+  // Example of ArrayList of Integer
+  ArrayList<Integer> arr1;
+  ArrayList<Integer> arr2;
+  ArrayList<Integer> arr3;
+  ArrayList<Integer> arr4;
+  ArrayList<ArrayList<Integer>> arrArr1;
+  ArrayList<ArrayList<Integer>> arrArr2;
+  ArrayList<Integer> resultArr1;
+  ArrayList<Integer> resultArr2;
+
+  // examples for posns
+  Posn n1Posn = new Posn(MazeWorld.EDGEWIDTH / 2, MazeWorld.EDGEHEIGHT / 2);
+  Posn n4Posn = new Posn(MazeWorld.EDGEWIDTH / 2, MazeWorld.EDGEHEIGHT + (MazeWorld.EDGEWIDTH / 2));
+  Posn n5Posn = new Posn(MazeWorld.EDGEHEIGHT + (MazeWorld.EDGEWIDTH / 2),
+      MazeWorld.EDGEHEIGHT + (MazeWorld.EDGEWIDTH / 2));
+
+  // Initialize values
+  void init() {
+    n1 = new Node(0, 0);
+    n2 = new Node(1, 0);
+    n3 = new Node(2, 0);
+    n4 = new Node(0, 1);
+    n5 = new Node(1, 1);
+    n6 = new Node(2, 1);
+    n7 = new Node(0, 2);
+    n8 = new Node(1, 2);
+    n9 = new Node(2, 2);
+    n10 = new Node(19, 14);
+
+    e12 = new Edge(n1, n2, 1);
+    e23 = new Edge(n2, n3, 5);
+    e45 = new Edge(n4, n5, 8);
+    e56 = new Edge(n5, n6, 3);
+    e78 = new Edge(n7, n8, 7);
+    e89 = new Edge(n8, n9, 9);
+    e14 = new Edge(n1, n4, 1);
+    e25 = new Edge(n2, n5, 4);
+    e36 = new Edge(n3, n6, 11);
+    e47 = new Edge(n4, n7, 50);
+    e58 = new Edge(n5, n8, 3);
+    e69 = new Edge(n6, n9, 5);
+
+    edgeList = new ArrayList<Edge>(Arrays.asList(e36, e12));
+
+    l1 = new ArrayList<Node>();
+    l1.add(n1);
+    l2 = new ArrayList<Node>();
+    l2.add(n2);
+    l3 = new ArrayList<Node>();
+    l3.add(n3);
+
+    nodeList = new ArrayList<ArrayList<Node>>();
+    nodeList.add(l1);
+    nodeList.add(l2);
+    nodeList.add(l3);
+
+    hash.clear();
+    hash.put(n1.toString(), n1.toString());
+    hash.put(n2.toString(), n2.toString());
+    hash.put(n3.toString(), n3.toString());
+
+    hash3.put(n2.toString(), e12);
+    hash3.put(n5.toString(), e25);
+    hash3.put(n6.toString(), e56);
+    hash3.put(n9.toString(), e69);
+    // ArrayLists of Integer
+    arr1 = new ArrayList<Integer>();
+    arr2 = new ArrayList<Integer>();
+    arr3 = new ArrayList<Integer>();
+    arr4 = new ArrayList<Integer>();
+    arr1.add(1);
+    arr2.add(2);
+    arr3.add(3);
+    arr4.add(4);
+    // ArrayList of ArrayLists of Integer
+    arrArr1 = new ArrayList<ArrayList<Integer>>();
+    arrArr1.add(arr1);
+    arrArr1.add(arr2);
+    arrArr1.add(arr3);
+    arrArr1.add(arr4);
+    arrArr2 = new ArrayList<ArrayList<Integer>>();
+    arrArr2.add(arr2);
+    arrArr2.add(arr4);
+    // Expected example after flattening the ArrayList of ArrayList of
+    // Integer
+    resultArr1 = new ArrayList<Integer>();
+    resultArr1.add(1);
+    resultArr1.add(2);
+    resultArr1.add(3);
+    resultArr1.add(4);
+    resultArr2 = new ArrayList<Integer>();
+    resultArr2.add(2);
+    resultArr2.add(4);
+
+    p1 = new Player(n1);
+    myWorld = new MazeWorld();
+  }
+
+  // initialize mw
+  void initMW() {
+    if (mw != null) {
+      mw.shutdown();
+    }
+    mw = new MazeWorld();
+  }
+
+  // test the getPosn method
+  boolean testGetPosn(Tester t) {
+    init();
+    return t.checkExpect(n1.getPosn(), n1Posn) && t.checkExpect(n5.getPosn(), n5Posn)
+        && t.checkExpect(n4.getPosn(), n4Posn);
+  }
+
+  // test the Edge comparator and the sort method
+  void testEdgeSort(Tester t) {
+    init();
+    t.checkExpect(edgeList.get(0), e36);
+    // sort edgeList
+    MazeUtils.sort(edgeList);
+    t.checkExpect(edgeList.get(0), e12);
+
+    t.checkExpect(edgeComp.compare(e12, e36) < 0, true);
+    t.checkExpect(edgeComp.compare(e12, e12) == 0, true);
+    t.checkExpect(edgeComp.compare(e36, e12) > 0, true);
+  }
+
+  // test the union and find methods
+  void testUnionFind(Tester t) {
+    init();
+    t.checkExpect(MazeUtils.find(hash, n1.toString()), n1.toString());
+    t.checkExpect(MazeUtils.find(hash, n2.toString()), n2.toString());
+    t.checkExpect(MazeUtils.find(hash, n3.toString()), n3.toString());
+    // union the nodes
+    MazeUtils.union(hash, MazeUtils.find(hash, n1.toString()), MazeUtils.find(hash, n2.toString()));
+    t.checkExpect(MazeUtils.find(hash, n1.toString()), n2.toString());
+    // union the nodes
+    MazeUtils.union(hash, MazeUtils.find(hash, n1.toString()), MazeUtils.find(hash, n3.toString()));
+    t.checkExpect(MazeUtils.find(hash, n2.toString()), n3.toString());
+  }
+
+  // test the moreThanOneTree method
+  void testMoreThanOneTree(Tester t) {
+    init();
+    t.checkExpect(MazeUtils.moreThanOneTree(hash), true);
+    MazeUtils.union(hash, MazeUtils.find(hash, n1.toString()), MazeUtils.find(hash, n2.toString()));
+    t.checkExpect(MazeUtils.moreThanOneTree(hash), true);
+    MazeUtils.union(hash, MazeUtils.find(hash, n1.toString()), MazeUtils.find(hash, n3.toString()));
+    t.checkExpect(MazeUtils.moreThanOneTree(hash), false);
+  }
+
+  // test the initRepresentatives method
+  void testInitRepresentatives(Tester t) {
+    init();
+    initMW();
+    // set hash2 with each node in nodeList pointing to itself
+    mw.initRepresentatives(hash2, nodeList);
+    t.checkExpect(hash, hash2);
+  }
+
+  // test the initializeNodes method
+  void testInitializeNodes(Tester t) {
+    init();
+    initMW();
+    ArrayList<ArrayList<Node>> nodes = mw.initializeNodes();
+    t.checkExpect(nodes.get(0).get(0), n1);
+    t.checkExpect(nodes.get(0).get(1), n4);
+    t.checkExpect(nodes.get(1).get(0), n2);
+    t.checkExpect(nodes.get(5).get(5).x == 5 && nodes.get(5).get(5).y == 5, true);
+  }
+
+  // test the connect method, then test movement methods for players
+  void testConnect(Tester t) {
+    // test connect
+    init();
+    MazeUtils.connect(e12);
+    MazeUtils.connect(e23);
+    MazeUtils.connect(e45);
+    MazeUtils.connect(e56);
+    MazeUtils.connect(e78);
+    MazeUtils.connect(e89);
+    MazeUtils.connect(e14);
+    MazeUtils.connect(e47);
+    MazeUtils.connect(e25);
+    MazeUtils.connect(e58);
+    MazeUtils.connect(e36);
+    MazeUtils.connect(e69);
+    t.checkExpect(n5.up, n2);
+    t.checkExpect(n5.down, n8);
+    t.checkExpect(n5.left, n4);
+    t.checkExpect(n5.right, n6);
+    t.checkExpect(n8.up, n5);
+    t.checkExpect(n2.down, n5);
+    t.checkExpect(n4.right, n5);
+    t.checkExpect(n6.left, n5);
+
+    // test movement
+    t.checkExpect(p1.loc, n1);
+
+    p1.moveRight(l3);
+    t.checkExpect(p1.loc, n2);
+
+    p1.moveDown(l2);
+    t.checkExpect(p1.loc, n5);
+
+    p1.moveLeft(l1);
+    t.checkExpect(p1.loc, n4);
+
+    p1.moveUp(l2);
+    t.checkExpect(p1.loc, n1);
+  }
+
+  // test the compare method for edges
+  boolean testCompare(Tester t) {
+    init();
+    return t.checkExpect(edgeComp.compare(e12, e36) < 0, true)
+        && t.checkExpect(edgeComp.compare(e36, e23) > 0, true)
+        && t.checkExpect(edgeComp.compare(e12, e12) == 0, true);
+  }
+
+  // test the toString method for nodes
+  void testToString(Tester t) {
+    init();
+    t.checkExpect(n1.toString(), "0x0y");
+    t.checkExpect(n2.toString(), "1x0y");
+    t.checkExpect(n3.toString(), "2x0y");
+  }
+
+  // test the isStart and isTarget method for nodes
+  void testIsStartIsTarget(Tester t) {
+    init();
+    t.checkExpect(n1.isStart(), true);
+    t.checkExpect(n2.isStart(), false);
+    t.checkExpect(n10.isTarget(), true);
+    t.checkExpect(n1.isTarget(), false);
+  }
+
+  // test the getNeighbors method for nodes
+  void testGetNeighbors(Tester t) {
+    init();
+    ArrayList<Node> nodeList = new ArrayList<Node>();
+    t.checkExpect(n1.getNeighbors(), nodeList);
+
+    MazeUtils.connect(e12);
+    nodeList.add(n2);
+    t.checkExpect(n1.getNeighbors(), nodeList);
+  }
+
+  // test the getScore method for players
+  void testGetScore(Tester t) {
+    init();
+    t.checkExpect(p1.getScore(), "You made 0 wrong moves");
+    MazeUtils.connect(e12);
+    // empty arraylist means it must be a wrong move
+    p1.moveRight(new ArrayList<Node>());
+    t.checkExpect(p1.getScore(), "You made 1 wrong moves");
+  }
+
+  // test the getStart method
+  void testGetStart(Tester t) {
+    init();
+    t.checkExpect(MazeUtils.getStart(nodeList), n1);
+  }
+
+  // test the sort method
+  void testSort(Tester t) {
+    init();
+    ArrayList<Edge> testList = new ArrayList<Edge>(Arrays.asList(e23, e12, e56));
+    MazeUtils.sort(testList);
+    ArrayList<Edge> sortedList = new ArrayList<Edge>(Arrays.asList(e12, e56, e23));
+    t.checkExpect(testList, sortedList);
+  }
+
+  // test the onTick method
+  void testOnTick(Tester t) {
+    // test the breadth-first portion
+    init();
+    initMW();
+    mw.onTick();
+    t.checkExpect(mw.breadthFirstWorkList.size(), 0);
+    // sets the tickSearch field to "bfs" and
+    // adds the start node to the worklist
+    mw.onKeyEvent("b");
     t.checkExpect(mw.breadthFirstWorkList.size(), 1);
     Node tempB = mw.breadthFirstWorkList.peek();
     t.checkExpect(tempB.visited, false);
@@ -976,137 +6379,1490 @@ class ExamplesMazeWorld {
     // tempB becomes visited, the worklist is updated
     // and no longer has tempB at its head
     mw.onTick();
-    t.checkExpect(tempB.visited, true);
-    t.checkExpect(mw.breadthFirstWorkList.peek() != tempB, true);
-    // test the depth-first portion
-    init();
+    t.checkExpect(tempB.visited, true);
+    t.checkExpect(mw.breadthFirstWorkList.peek() != tempB, true);
+    // test the depth-first portion
+    init();
+    initMW();
+    t.checkExpect(mw.depthFirstWorkList.size(), 0);
+    // sets the tickSearch field to "dfs" and
+    // adds the start node to the worklist
+    mw.onKeyEvent("d");
+    t.checkExpect(mw.depthFirstWorkList.size(), 1);
+    Node tempD = mw.depthFirstWorkList.peek();
+    t.checkExpect(tempD.visited, false);
+    t.checkExpect(tempD.x == 0 && tempD.y == 0, true);
+    // tempD becomes visited, the worklist is updated
+    // and no longer has tempD as its top
+    mw.onTick();
+    t.checkExpect(tempD.visited, true);
+    t.checkExpect(mw.depthFirstWorkList.peek() != tempD, true);
+  }
+
+  //
+  // test the reconstruct methods
+  void testReconstruct(Tester t) {
+    init();
+    initMW();
+    t.checkExpect(n1.path, false);
+    t.checkExpect(n4.path, false);
+    t.checkExpect(n6.path, false);
+    // sets the path field of nodes in the path to the
+    // end to true
+    mw.reconstruct(hash3, n9);
+    t.checkExpect(n1.path, true);
+    t.checkExpect(n4.path, false);
+    t.checkExpect(n6.path, true);
+
+    init();
+    ArrayList<Node> path = MazeUtils.reconstruct(hash3, n9);
+    t.checkExpect(path.contains(n1), true);
+    t.checkExpect(path.contains(n7), false);
+    t.checkExpect(path.contains(n9), true);
+  }
+
+  // test the depthFirstSearch method
+  void testDepthFirstSearch(Tester t) {
+    init();
+    initMW();
+    // mw.path is the result of the depthFirstSearch() method
+    ArrayList<Node> tempPath = mw.path;
+    for (Node n : tempPath) {
+      t.checkExpect(n.hiddenVisited, true);
+    }
+  }
+
+  // test the initializeEdges method
+  void testInitializeEdges(Tester t) {
+    init();
+    initMW();
+    ArrayList<Edge> edges = mw.initializeEdges();
+    for (Edge e : edges) {
+      Node a = e.a;
+      Node b = e.b;
+      // the nodes are adjacent
+      t.checkExpect(Math.abs(a.x - b.x) == 1 ^ Math.abs(a.y - b.y) == 1, true);
+      // the weight is between 0 and 1m
+      t.checkRange(e.weight, 0, 1000000);
+    }
+  }
+
+  // test the initializeMaze method
+  void testInitializeMaze(Tester t) {
+    init();
+    initMW();
+    t.checkExpect(mw.edges.size(), mw.nodes.size() * mw.nodes.get(0).size() - 1);
+  }
+
+  // test the onKey event method
+  void testOnKey(Tester t) {
+    init();
+    // input block at initial state
+    t.checkExpect(myWorld.newSearchBlock, false);
+    t.checkExpect(myWorld.tickSearch, "");
+    // start breadth-first search by pressing "b"
+    myWorld.onKeyEvent("b");
+    t.checkExpect(myWorld.newSearchBlock, true);
+    t.checkExpect(myWorld.tickSearch, "bfs");
+    // Resets the world to its initial state by pressing "r"
+    myWorld.onKeyEvent("r");
+    t.checkExpect(myWorld.newSearchBlock, true);
+    t.checkExpect(myWorld.tickSearch, "bfs");
+    // start depth-first search by pressing "d"
+    myWorld.onKeyEvent("d");
+    t.checkExpect(myWorld.newSearchBlock, true);
+    t.checkExpect(myWorld.tickSearch, "bfs");
+
+    Node prev = myWorld.player.loc;
+    t.checkExpect(myWorld.player.loc.equals(prev), true);
+
+    myWorld.onKeyEvent("r");
+
+    myWorld.PATHVIS = true;
+    t.checkExpect(myWorld.PATHVIS, true);
+    // EFFECT toggles path visibility
+    myWorld.onKeyEvent("t");
+    t.checkExpect(myWorld.PATHVIS, false);
+
+    // Tests for player movements.
+    myWorld.player = p1;
+    MazeUtils.connect(e12);
+    MazeUtils.connect(e14);
+    MazeUtils.connect(e25);
+    MazeUtils.connect(e45);
+    // moves the player down a node
+    myWorld.onKeyEvent("down");
+    t.checkExpect(myWorld.player.loc, n4);
+
+    // moves the player right a node
+    myWorld.onKeyEvent("right");
+    t.checkExpect(myWorld.player.loc, n5);
+
+    // moves the player up a node
+    myWorld.onKeyEvent("up");
+    t.checkExpect(myWorld.player.loc, n2);
+
+    // moves the player left a node
+    myWorld.onKeyEvent("left");
+    t.checkExpect(myWorld.player.loc, n1);
+
+    myWorld.bias = 1;
+    // cycle through the direction biases
+    myWorld.onKeyEvent("w");
+    t.checkExpect(myWorld.bias, 2);
+  }
+
+  // test the adjacency rows of the graph topologies
+  void testMazeGraph(Tester t) {
+    MazeGraph grid = MazeGraph.grid(4, 3);
+    t.checkExpect(grid.cells, 12);
+    t.checkExpect(grid.edgeCount(), 3 * 3 + 4 * 2);
+    // corners touch 2 cells, borders 3 and inner cells 4
+    t.checkExpect(grid.degree(grid.cellAt(0, 0)), 2);
+    t.checkExpect(grid.degree(grid.cellAt(1, 0)), 3);
+    t.checkExpect(grid.degree(grid.cellAt(1, 1)), 4);
+    t.checkExpect(grid.targets[grid.offsets[0]], 1);
+    t.checkExpect(grid.targets[grid.offsets[0] + 1], 4);
+    t.checkExpect(grid.other(grid.slotEdges[grid.offsets[0]], 0), 1);
+
+    MazeGraph torus = MazeGraph.torus(4, 3);
+    for (int c = 0; c < torus.cells; c++) {
+      t.checkExpect(torus.degree(c), 4);
+    }
+
+    MazeGraph hex = MazeGraph.hex(5, 5);
+    t.checkExpect(hex.degree(hex.cellAt(2, 2)), 6);
+    t.checkExpect(hex.degree(hex.cellAt(2, 1)), 6);
+    t.checkExpect(hex.degree(hex.cellAt(0, 0)), 2);
+
+    // laid out again smaller, a grid keeps its arrays and matches a new one
+    MazeGraph big = MazeGraph.grid(6, 5);
+    int[] targets = big.targets;
+    t.checkExpect(big.layGrid(4, 3), false);
+    t.checkExpect(big.targets == targets, true);
+    t.checkExpect(big.cells, grid.cells);
+    t.checkExpect(big.edgeCount(), grid.edgeCount());
+    t.checkExpect(Arrays.copyOf(big.offsets, grid.cells + 1), grid.offsets);
+    t.checkExpect(Arrays.copyOf(big.targets, grid.targets.length), grid.targets);
+    t.checkExpect(Arrays.copyOf(big.slotEdges, grid.slotEdges.length), grid.slotEdges);
+    t.checkExpect(big.layGrid(7, 5), true);
+    t.checkExpect(big.edgeCount(), 6 * 5 + 7 * 4);
+  }
+
+  // test reading an arbitrary graph from an edge list
+  void testMazeGraphRead(Tester t) throws java.io.IOException {
+    String text = "# a square with a tail\n4\n0 1\n1 2\n2 0\n\n2 3\n";
+    MazeGraph g = MazeGraph.read(new java.io.BufferedReader(new java.io.StringReader(text)));
+    t.checkExpect(g.cells, 4);
+    t.checkExpect(g.edgeCount(), 4);
+    t.checkExpect(g.degree(2), 3);
+    t.checkExpect(g.degree(3), 1);
+  }
+
+  // test the int union-find
+  void testUnionFindInts(Tester t) {
+    UnionFind sets = new UnionFind(4);
+    t.checkExpect(sets.trees, 4);
+    t.checkExpect(sets.union(0, 1), true);
+    t.checkExpect(sets.union(1, 0), false);
+    t.checkExpect(sets.find(0) == sets.find(1), true);
+    t.checkExpect(sets.find(0) == sets.find(2), false);
+    sets.reset(3);
+    t.checkExpect(sets.trees, 3);
+    t.checkExpect(sets.find(1), 1);
+  }
+
+  // test that the world's mazes are the ones the HashMap Kruskal's algorithm made
+  void testWorldKruskal(Tester t) {
+    for (int bias = 0; bias <= 2; bias++) {
+      ArrayList<ArrayList<Node>> nodes = MazeUtils.initializeNodes(12, 9);
+      ArrayList<Edge> allEdges = MazeUtils.initializeEdges(nodes, new Random(bias), bias);
+      ArrayList<Edge> expected = MazeBenchmarks.hashMapKruskal(nodes,
+          new ArrayList<Edge>(allEdges));
+      t.checkExpect(MazeUtils.initializeMaze(nodes, allEdges, 0), expected);
+      // the path runs from the target back to the start along open passages
+      ArrayList<Node> path = MazeUtils.depthFirstSearch(nodes);
+      t.checkExpect(path.get(0), nodes.get(11).get(8));
+      t.checkExpect(path.get(path.size() - 1), nodes.get(0).get(0));
+      for (int i = 1; i < path.size(); i++) {
+        t.checkExpect(path.get(i - 1).getNeighbors().contains(path.get(i)), true);
+      }
+    }
+  }
+
+  // test generating and solving mazes over each topology
+  void testGraphMazeKruskal(Tester t) {
+    MazeGraph[] graphs = { MazeGraph.grid(20, 15), MazeGraph.torus(9, 7), MazeGraph.hex(12, 10) };
+    for (MazeGraph g : graphs) {
+      GraphMaze maze = GraphMaze.kruskal(g, new Random(7));
+      // a spanning tree opens exactly one passage fewer than there are cells
+      t.checkExpect(maze.passageCount(), g.cells - 1);
+      int[] bfs = GraphSearch.breadthFirst(maze, maze.start, maze.target);
+      int[] dfs = GraphSearch.depthFirst(maze, maze.start, maze.target);
+      // a perfect maze has only one path between two cells
+      t.checkExpect(bfs, dfs);
+      t.checkExpect(bfs[0], maze.target);
+      t.checkExpect(bfs[bfs.length - 1], maze.start);
+    }
+  }
+
+  // test searching a maze with no way through
+  void testGraphSearchNoPath(Tester t) {
+    GraphMaze walled = new GraphMaze(MazeGraph.grid(3, 3));
+    t.checkExpect(GraphSearch.breadthFirst(walled, 0, 8).length, 0);
+    t.checkExpect(GraphSearch.depthFirst(walled, 0, 8).length, 0);
+    t.checkExpect(GraphSearch.breadthFirst(walled, 4, 4), new int[] { 4 });
+  }
+
+  // test the level-synchronous parallel breadth-first search
+  void testParallelBfs(Tester t) {
+    java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+    GraphMaze maze = GraphMaze.kruskal(MazeGraph.grid(200, 150), new Random(3));
+    ParallelBfs bfs = new ParallelBfs(maze, pool);
+    // a perfect maze has only one path, so it must match the serial search
+    t.checkExpect(bfs.solve(maze.start, maze.target),
+        GraphSearch.breadthFirst(maze, maze.start, maze.target));
+
+    // force every level to run bottom-up
+    bfs.alpha = Integer.MAX_VALUE;
+    bfs.beta = Integer.MAX_VALUE;
+    t.checkExpect(bfs.solve(maze.start, maze.target),
+        GraphSearch.breadthFirst(maze, maze.start, maze.target));
+    t.checkExpect(bfs.bottomUpLevels, bfs.levels);
+
+    // with every passage open the path is as short as the grid allows
+    GraphMaze open = new GraphMaze(MazeGraph.grid(130, 70));
+    Arrays.fill(open.open, -1L);
+    ParallelBfs openBfs = new ParallelBfs(open, pool);
+    t.checkExpect(openBfs.solve(0, open.target).length, 130 + 70 - 1);
+    t.checkExpect(openBfs.bottomUpLevels > 0, true);
+
+    // walled off cells cannot be reached
+    t.checkExpect(new ParallelBfs(new GraphMaze(MazeGraph.grid(5, 5)), pool).solve(0, 24).length,
+        0);
+    pool.shutdown();
+  }
+
+  // test solving by dead-end filling over packed bitplanes
+  void testDeadEndFiller(Tester t) {
+    // wide enough that rows span several longs
+    GraphMaze maze = GraphMaze.kruskal(MazeGraph.grid(150, 40), new Random(11));
+    DeadEndFiller filler = DeadEndFiller.fromMaze(maze);
+    t.checkExpect(filler.wordsPerRow, 3);
+    t.checkExpect(filler.solve(), GraphSearch.breadthFirst(maze, maze.start, maze.target));
+    t.checkExpect(filler.isFilled(0, 0), false);
+    t.checkExpect(filler.isFilled(149, 39), false);
+
+    // the corridor left in the world's maze is the path found by depthFirstSearch
+    initMW();
+    DeadEndFiller worldFiller = DeadEndFiller.fromNodes(mw.nodes);
+    worldFiller.fill();
+    t.checkExpect(worldFiller.survivors(), mw.path.size());
+    for (Node n : mw.path) {
+      t.checkExpect(worldFiller.isFilled(n.x, n.y), false);
+    }
+
+    // with the target walled off, no corridor leads back to the start
+    int[] path = GraphSearch.breadthFirst(maze, maze.start, maze.target);
+    GraphMaze cut = GraphMaze.kruskal(MazeGraph.grid(150, 40), new Random(11));
+    for (int s = cut.graph.offsets[path[0]]; s < cut.graph.offsets[path[0] + 1]; s++) {
+      if (cut.graph.targets[s] == path[1]) {
+        cut.closeEdge(cut.graph.slotEdges[s]);
+      }
+    }
+    t.checkExpect(DeadEndFiller.fromMaze(cut).solve(), new int[0]);
+    // the Vector API sweep, where this JVM has it, fills the same cells
+    DeadEndFiller scalar = DeadEndFiller.fromMaze(maze);
+    scalar.vectors = null;
+    scalar.fill();
+    DeadEndFiller swept = DeadEndFiller.fromMaze(maze);
+    swept.fill();
+    t.checkExpect(swept.filled, scalar.filled);
+    // a dead end winding down and up every column drains in work linear in
+    // its length, not a sweep of the grid per turn
+    DeadEndFiller winding = new DeadEndFiller(130, 60);
+    for (int x = 0; x < 129; x++) {
+      winding.openEast(x, 0);
+    }
+    for (int x = 0; x < 128; x++) {
+      winding.openEast(x, x % 2 == 0 ? 59 : 1);
+    }
+    winding.openSouth(0, 0);
+    for (int y = 0; y < 59; y++) {
+      winding.openSouth(129, y);
+      for (int x = 0; y > 0 && x < 129; x++) {
+        winding.openSouth(x, y);
+      }
+    }
+    t.checkExpect(winding.fill() < 2 * 130 * 60, true);
+    t.checkExpect(winding.survivors(), 130 + 59);
+    // loops survive the filling, and any corridor found must still be a path
+    for (double fraction : new double[] { 0.1, 1.0 }) {
+      MazeGraph g = MazeGraph.grid(30, 20);
+      GraphMaze braided = GraphMaze.braided(g, g.randomWeights(5L), fraction, 1);
+      int[] found = DeadEndFiller.fromMaze(braided).solve();
+      if (found.length > 0) {
+        t.checkExpect(found[0], braided.target);
+        t.checkExpect(found[found.length - 1], braided.start);
+        for (int i = 1; i < found.length; i++) {
+          t.checkExpect(braided.isPassage(found[i - 1], found[i]), true);
+        }
+      }
+    }
+  }
+
+  // test that only grids can be packed into bitplanes
+  void testDeadEndFillerGridOnly(Tester t) {
+    GraphMaze hex = GraphMaze.kruskal(MazeGraph.hex(6, 6), new Random(1));
+    t.checkException(new IllegalArgumentException("Edge 1-6 is not part of a grid"),
+        new DeadEndFiller(1, 1), "fromMaze", hex);
+  }
+
+  // test validating the world's maze and mazes in the graph backend
+  void testMazeValidator(Tester t) {
+    initMW();
+    t.checkExpect(MazeValidator.problemWith(mw.nodes, mw.edges), null);
+
+    // a link with no edge behind it
+    init();
+    MazeUtils.connect(e12);
+    ArrayList<Edge> noEdges = new ArrayList<Edge>();
+    t.checkExpect(MazeValidator.problemWith(nodeList, noEdges), "1 links for 0 edges");
+    // a one-way link
+    n3.left = n2;
+    t.checkExpect(MazeValidator.problemWith(nodeList, noEdges), "one-way link at 2x0y");
+
+    GraphMaze maze = GraphMaze.kruskal(MazeGraph.hex(10, 10), new Random(5));
+    t.checkExpect(MazeValidator.problemWith(maze), null);
+    int closed = 0;
+    while (maze.isOpen(closed)) {
+      closed++;
+    }
+    maze.openEdge(closed);
+    t.checkExpect(MazeValidator.problemWith(maze).startsWith("loop closed"), true);
+    t.checkExpect(MazeValidator.problemWith(new GraphMaze(MazeGraph.grid(2, 2))),
+        "not connected: 4 separate parts");
+  }
+
+  // test validating a streamed maze file row by row
+  void testMazeValidatorStream(Tester t) throws java.io.IOException {
+    GraphMaze maze = GraphMaze.kruskal(MazeGraph.grid(100, 30), new Random(9));
+    java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+    MazeFile.write(maze, new java.io.DataOutputStream(bytes));
+    t.checkExpect(MazeValidator.problemWith(new java.io.DataInputStream(
+        new java.io.ByteArrayInputStream(bytes.toByteArray()))), null);
+
+    // a missing passage splits the maze, an extra one closes a loop
+    MazeValidator v = new MazeValidator(3, 2);
+    v.acceptRow(new long[] { 0b011 }, new long[] { 0b100 });
+    v.acceptRow(new long[] { 0b001 }, new long[] { 0 });
+    t.checkExpect(v.finish(), false);
+    t.checkExpect(v.problem, "not connected: 4 passages for 6 cells");
+    v = new MazeValidator(3, 2);
+    v.acceptRow(new long[] { 0b011 }, new long[] { 0b101 });
+    v.acceptRow(new long[] { 0b011 }, new long[] { 0 });
+    t.checkExpect(v.problem, "loop closed by the passage above 2x1y");
+    v = new MazeValidator(3, 1);
+    v.acceptRow(new long[] { 0b111 }, new long[] { 0 });
+    t.checkExpect(v.problem, "passage through the right border at 2x0y");
+  }
+
+  // test the indexed 4-ary heap
+  void testIndexedHeap(Tester t) {
+    IndexedHeap heap = new IndexedHeap(10);
+    int[] prios = { 50, 20, 90, 10, 70, 30, 80, 60, 40, 0 };
+    for (int i = 0; i < prios.length; i++) {
+      heap.push(i, prios[i]);
+    }
+    // lowering a priority moves the id up, raising one is ignored
+    heap.push(2, 5);
+    heap.push(9, 100);
+    t.checkExpect(heap.contains(2), true);
+    int[] popped = new int[10];
+    for (int i = 0; i < 10; i++) {
+      popped[i] = heap.pop();
+    }
+    t.checkExpect(popped, new int[] { 9, 2, 3, 1, 5, 8, 0, 7, 4, 6 });
+    t.checkExpect(heap.isEmpty(), true);
+    t.checkExpect(heap.contains(2), false);
+    heap.push(4, 1);
+    heap.clear();
+    t.checkExpect(heap.contains(4), false);
+  }
+
+  // test braiding and searching weighted mazes
+  void testWeightedSearch(Tester t) {
+    MazeGraph g = MazeGraph.grid(60, 40);
+    int[] weights = g.randomWeights(new Random(21));
+    GraphMaze perfect = GraphMaze.braided(g, weights, 0, 9);
+    GraphMaze braided = GraphMaze.braided(g, weights, 0.25, 9);
+    int leftOut = g.edgeCount() - (g.cells - 1);
+    t.checkExpect(perfect.passageCount(), g.cells - 1);
+    t.checkExpect(braided.passageCount(), g.cells - 1 + Math.round(leftOut * 0.25f));
+    t.checkRange(braided.cost(0), 1, 10);
+
+    // in a perfect maze there is only one path to find
+    WeightedSearch tree = new WeightedSearch(perfect);
+    t.checkExpect(tree.dijkstra(0, g.cells - 1), GraphSearch.breadthFirst(perfect, 0, g.cells - 1));
+
+    // A* finds a path as cheap as Dijkstra's while settling no more cells
+    WeightedSearch search = new WeightedSearch(braided);
+    int[] dPath = search.dijkstra(0, g.cells - 1);
+    int dCost = search.dist[g.cells - 1];
+    int dSettled = search.settled;
+    int[] aPath = search.aStar(0, g.cells - 1);
+    t.checkExpect(search.dist[g.cells - 1], dCost);
+    t.checkExpect(search.settled <= dSettled, true);
+    t.checkExpect(aPath[aPath.length - 1], 0);
+    int cost = 0;
+    for (int i = 0; i + 1 < dPath.length; i++) {
+      cost += 1 + (int) ((long) weights[this.edgeBetween(g, dPath[i], dPath[i + 1])] * 9 / 1000000);
+    }
+    t.checkExpect(cost, dCost);
+    // braiding can only make the cheapest path cheaper
+    t.checkExpect(dCost <= tree.dist[g.cells - 1], true);
+  }
+
+  // the id of the edge joining two neighboring cells
+  int edgeBetween(MazeGraph g, int a, int b) {
+    for (int s = g.offsets[a]; s < g.offsets[a + 1]; s++) {
+      if (g.targets[s] == b) {
+        return g.slotEdges[s];
+      }
+    }
+    return -1;
+  }
+
+  // test braiding the world's maze
+  void testBraidWorld(Tester t) {
+    initMW();
+    mw.braid = 0.5;
+    mw.onKeyEvent("n");
+    int cells = MazeWorld.WORLDWIDTH * MazeWorld.WORLDHEIGHT;
+    int leftOut = mw.allEdges.size() - (cells - 1);
+    t.checkExpect(mw.edges.size(), cells - 1 + (int) Math.round(leftOut * 0.5));
+    // with loops the path is the shortest one, not whichever depth-first found
+    GraphMaze maze = GraphMaze.fromNodes(mw.nodes);
+    t.checkExpect(mw.path.size(),
+        GraphSearch.breadthFirst(maze, maze.start, maze.target).length);
+
+    // "l" steps the braid the next maze is made with, wrapping back to none
+    initMW();
+    mw.onKeyEvent("l");
+    t.checkExpect(mw.braid, 0.1);
+    t.checkExpect(mw.edges.size(), cells - 1);
+    mw.onKeyEvent("n");
+    t.checkExpect(mw.edges.size() > cells - 1, true);
+    mw.onKeyEvent("l");
+    mw.onKeyEvent("l");
+    mw.onKeyEvent("l");
+    t.checkExpect(mw.braid, 0.0);
+    mw.onKeyEvent("n");
+    t.checkExpect(mw.edges.size(), cells - 1);
+  }
+
+  // test preparing mazes in the background
+  void testMazePrefetcher(Tester t) throws InterruptedException {
+    MazePrefetcher pool = new MazePrefetcher(2, 1, 17);
+    pool.configure(0, 0);
+    t.checkExpect(pool.pending.size(), 2);
+    while (pool.readyCount() < 2) {
+      Thread.sleep(5);
+    }
+    PreparedMaze ready = pool.take(0, 0);
+    // the taken maze is replaced straight away
+    t.checkExpect(pool.pending.size(), 2);
+    t.checkExpect(ready.path.get(0), ready.nodes.get(MazeWorld.WORLDWIDTH - 1)
+        .get(MazeWorld.WORLDHEIGHT - 1));
+    t.checkExpect(MazeValidator.problemWith(ready.nodes, ready.edges), null);
+
+    // new settings throw the old mazes away
+    java.util.concurrent.Future<PreparedMaze> old = pool.pending.peek();
+    PreparedMaze braided = pool.take(0, 1.0);
+    t.checkExpect(old.isDone(), true);
+    t.checkExpect(pool.pending.contains(old), false);
+    t.checkExpect(braided.braid, 1.0);
+    t.checkExpect(braided.edges.size(), braided.allEdges.size());
+    pool.shutdown();
+    t.checkExpect(pool.pending.size(), 0);
+  }
+
+  // test that a new maze comes with its own solution
+  void testResetSolution(Tester t) throws InterruptedException {
+    initMW();
+    ArrayList<Node> oldPath = mw.path;
+    mw.onKeyEvent("n");
+    t.checkExpect(mw.path != oldPath, true);
+    t.checkExpect(mw.path.get(0), mw.nodes.get(MazeWorld.WORLDWIDTH - 1)
+        .get(MazeWorld.WORLDHEIGHT - 1));
+    t.checkExpect(mw.path.get(mw.path.size() - 1), MazeUtils.getStart(mw.nodes));
+    t.checkExpect(mw.player.loc, MazeUtils.getStart(mw.nodes));
+
+    // mazes are being made from the start, so the first reset need not wait
+    initMW();
+    t.checkExpect(mw.prefetcher.pending.size(), mw.prefetcher.capacity);
+    t.checkExpect(mw.prefetcher.bias, mw.bias);
+    while (mw.prefetcher.readyCount() < 1) {
+      Thread.sleep(5);
+    }
+    mw.onKeyEvent("n");
+    t.checkExpect(mw.prefetcher.pending.size(), mw.prefetcher.capacity);
+    mw.shutdown();
+    t.checkExpect(mw.prefetcher.workers.isShutdown(), true);
+  }
+
+  // test that parallel weights depend only on the seed
+  void testRandomWeights(Tester t) {
+    MazeGraph g = MazeGraph.grid(300, 200);
+    java.util.concurrent.ForkJoinPool one = new java.util.concurrent.ForkJoinPool(1);
+    java.util.concurrent.ForkJoinPool four = new java.util.concurrent.ForkJoinPool(4);
+    int[] serial = g.randomWeights(42, one);
+    t.checkExpect(g.edgeCount() > 3 * MazeGraph.WEIGHT_BLOCK, true);
+    t.checkExpect(g.randomWeights(42, four), serial);
+    t.checkExpect(g.randomWeights(42), serial);
+    t.checkFail(g.randomWeights(43, four), serial);
+    t.checkRange(Arrays.stream(serial).min().getAsInt(), 0, 1000000);
+    t.checkRange(Arrays.stream(serial).max().getAsInt(), 0, 1000000);
+    // written into a buffer on this thread they come out the same
+    int[] into = new int[serial.length + 5];
+    g.randomWeights(42, into);
+    t.checkExpect(Arrays.copyOf(into, serial.length), serial);
+    // and each block is the stream SplittableRandom splits off for it
+    SplittableRandom root = new SplittableRandom(42);
+    int[] streams = new int[serial.length];
+    for (int b = 0; b * MazeGraph.WEIGHT_BLOCK < serial.length; b++) {
+      SplittableRandom stream = root.split();
+      int end = Math.min(serial.length, (b + 1) * MazeGraph.WEIGHT_BLOCK);
+      for (int e = b * MazeGraph.WEIGHT_BLOCK; e < end; e++) {
+        streams[e] = stream.nextInt(1000000);
+      }
+    }
+    t.checkExpect(serial, streams);
+    one.shutdown();
+    four.shutdown();
+
+    int[] columns = MazeUtils.columnWeights(20, 15, 42);
+    t.checkExpect(columns.length, 19 * 15 + 20 * 14);
+    t.checkExpect(MazeUtils.columnWeights(20, 15, 42), columns);
+    // the same seed makes the same world edges
+    initMW();
+    ArrayList<Edge> a = MazeUtils.initializeEdges(mw.nodes, new Random(8), 0);
+    ArrayList<Edge> b = MazeUtils.initializeEdges(mw.nodes, new Random(8), 0);
+    for (int i = 0; i < a.size(); i++) {
+      t.checkExpect(a.get(i).weight, b.get(i).weight);
+    }
+  }
+
+  // test the bot strategies
+  void testBotStrategies(Tester t) {
+    GraphMaze maze = GraphMaze.kruskal(MazeGraph.grid(30, 20), new Random(4));
+    BotStrategy[] strategies = { new WallFollower(), new Tremaux(maze.graph), new RandomWalk(4) };
+    BotSwarm swarm = new BotSwarm(maze, strategies,
+        new java.util.concurrent.ForkJoinPool(2));
+    // a wall follower walks every passage at most twice, and so does Tremaux
+    for (int i = 0; i < 2 * 600 && swarm.finishedCount() < 2; i++) {
+      swarm.step();
+    }
+    t.checkExpect(swarm.finishedAt[0] > 0, true);
+    t.checkExpect(swarm.finishedAt[1] > 0, true);
+    t.checkExpect(swarm.cells[0], maze.target);
+    t.checkExpect(swarm.visited(0, maze.target), true);
+    t.checkExpect(swarm.visited(2, maze.start), true);
+    // finished bots stay put
+    int moves = swarm.moves[0];
+    swarm.step();
+    t.checkExpect(swarm.moves[0], moves);
+    t.checkExpect(swarm.getScore(1).startsWith("Bot 1 made "), true);
+    t.checkExpect(swarm.moves[2], swarm.ticks);
+
+    // the turning order goes round each cell
+    MazeGraph g = MazeGraph.grid(3, 3);
+    int[] order = BotSwarm.turnOrder(g);
+    int[] round = new int[4];
+    for (int i = 0; i < 4; i++) {
+      round[i] = g.targets[order[g.offsets[4] + i]];
+    }
+    t.checkExpect(round, new int[] { 1, 5, 7, 3 });
+
+    // sent into the next maze of a workspace, the bots start over in it
+    MazeWorkspace work = new MazeWorkspace();
+    work.generate(30, 20, 4);
+    swarm.reset(work);
+    t.checkExpect(swarm.maze, work.maze);
+    t.checkExpect(swarm.ticks, 0);
+    t.checkExpect(swarm.finishedCount(), 0);
+    t.checkExpect(swarm.cells, new int[] { 0, 0, 0 });
+    t.checkExpect(swarm.visited(0, maze.target), false);
+    long[] marks = ((Tremaux) strategies[1]).marks;
+    t.checkExpect(marks, new long[marks.length]);
+    work.generate(20, 10, 5);
+    swarm.reset(work);
+    for (int i = 0; i < 2 * 400 && swarm.finishedCount() < 2; i++) {
+      swarm.step();
+    }
+    t.checkExpect(swarm.cells[0], 199);
+    t.checkExpect(swarm.cells[1], 199);
+    t.checkExpect(swarm.wrongMoves[0] < swarm.moves[0], true);
+  }
+
+  // test a swarm of bots in the world
+  void testBotSwarmWorld(Tester t) throws InterruptedException,
+      java.util.concurrent.ExecutionException {
+    initMW();
+    mw.onKeyEvent("a");
+    // the bots are made in the background and let loose on the tick after
+    t.checkExpect(mw.comingBots != null, true);
+    mw.comingBots.get();
+    t.checkExpect(mw.bots, null);
+    t.checkExpect(mw.simulate(), true);
+    t.checkExpect(mw.comingBots, null);
+    t.checkExpect(mw.bots.cells.length, 999);
+    t.checkExpect(mw.bots.ticks, 1);
+    t.checkExpect(mw.bots.movesPerSecond() > 0, true);
+    mw.makeScene();
+    // a door opened after the bots are loose opens for them too
+    Edge wall = null;
+    for (Edge e : mw.allEdges) {
+      wall = wall == null && !e.passage ? e : wall;
+    }
+    t.checkExpect(mw.bots.maze == mw.doors.maze, true);
+    t.checkExpect(mw.toggleDoor(wall), true);
+    t.checkExpect(mw.bots.maze.isPassage(mw.cellOf(wall.a), mw.cellOf(wall.b)), true);
+    for (int c : mw.doors.path()) {
+      t.checkExpect(ParallelBfs.get(mw.bots.solution, c), true);
+    }
+    // a new maze forgets bots still being made for the old one, whose doors
+    // stay as they are until then
+    mw.onKeyEvent("a");
+    t.checkExpect(mw.toggleDoor(wall), false);
+    t.checkExpect(wall.passage, true);
+    mw.onKeyEvent("n");
+    t.checkExpect(mw.comingBots, null);
+    t.checkExpect(mw.bots, null);
+  }
+
+  // test turning time into fixed steps
+  void testFixedStepClock(Tester t) {
+    // 100 steps a second, at most 5 at once
+    FixedStepClock clock = new FixedStepClock(100, 5);
+    t.checkExpect(clock.stepsDue(1000000000L), 0);
+    t.checkExpect(clock.stepsDue(1004000000L), 0);
+    // the 4ms left over carry into the next call
+    t.checkExpect(clock.stepsDue(1016000000L), 1);
+    t.checkExpect(clock.stepsDue(1050000000L), 4);
+    t.checkExpect(clock.behind, false);
+    // a long stall is capped and the rest dropped
+    t.checkExpect(clock.stepsDue(2050000000L), 5);
+    t.checkExpect(clock.behind, true);
+    t.checkExpect(clock.dropped, 95L);
+    t.checkExpect(clock.stepsDue(2060000000L), 1);
+    t.checkExpect(clock.behind, false);
+    t.checkConstructorException(new IllegalArgumentException("Invalid step rate 0.0 or cap 1"),
+        "FixedStepClock", 0.0, 1);
+  }
+
+  // test drawing only when something has changed
+  void testRenderOnChange(Tester t) {
+    initMW();
+    WorldScene first = mw.makeScene();
+    // nothing is running, so ticks change nothing and the scene is reused
+    mw.onTick();
+    t.checkExpect(mw.makeScene() == first, true);
+    mw.onKeyEvent("b");
+    WorldScene searching = mw.makeScene();
+    t.checkExpect(searching != first, true);
+    mw.onTick();
+    t.checkExpect(mw.dirty, true);
+    t.checkExpect(mw.makeScene() != searching, true);
+    t.checkExpect(mw.simulate(), true);
+
+    // keys that change nothing drawn, like bumping into the walls round the
+    // start once it is marked visited, draw nothing while idle
     initMW();
-    t.checkExpect(mw.depthFirstWorkList.size(), 0);
-    // sets the tickSearch field to "dfs" and
-    // adds the start node to the worklist
+    mw.onKeyEvent("up");
+    mw.makeScene();
+    int redraws = mw.redraws;
+    for (String key : new String[] { "up", "left", ",", ".", "l", "[", "]", "x" }) {
+      mw.onKeyEvent(key);
+      mw.onTick();
+      mw.makeScene();
+    }
+    t.checkExpect(mw.redraws, redraws);
+    mw.onKeyEvent("t");
+    mw.makeScene();
+    t.checkExpect(mw.redraws, redraws + 1);
+
+    // with a clock, ticks run the steps due
+    initMW();
+    mw.clock = new FixedStepClock(1000, 100);
     mw.onKeyEvent("d");
-    t.checkExpect(mw.depthFirstWorkList.size(), 1);
-    Node tempD = mw.depthFirstWorkList.peek();
-    t.checkExpect(tempD.visited, false);
-    t.checkExpect(tempD.x == 0 && tempD.y == 0, true);
-    // tempD becomes visited, the worklist is updated
-    // and no longer has tempD as its top
     mw.onTick();
-    t.checkExpect(tempD.visited, true);
-    t.checkExpect(mw.depthFirstWorkList.peek() != tempD, true);
+    t.checkExpect(mw.depthFirstWorkList.size(), 1);
+    // while it stays behind, only a few frames in a row are skipped
+    WorldScene behind = mw.makeScene();
+    mw.clock.behind = true;
+    for (int i = 0; i < MazeWorld.MAX_SKIPPED; i++) {
+      mw.dirty = true;
+      t.checkExpect(mw.makeScene() == behind, true);
+    }
+    t.checkExpect(mw.makeScene() != behind, true);
+    t.checkExpect(mw.skipped, 0);
   }
 
-  //
-  // test the reconstruct methods
-  void testReconstruct(Tester t) {
-    init();
+  // test exporting a maze as a PNG image in strips
+  void testMazeImageExporter(Tester t) throws java.io.IOException {
+    GraphMaze maze = GraphMaze.kruskal(MazeGraph.grid(40, 30), new Random(6));
+    int[] solution = GraphSearch.breadthFirst(maze, maze.start, maze.target);
+    java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(3);
+    MazeImageExporter exporter = new MazeImageExporter(maze, solution, 3, pool);
+    // several strips, the last one short
+    exporter.stripRows = 7;
+    int[] heat = new int[maze.graph.cells];
+    Arrays.fill(heat, -1);
+    heat[1] = 10;
+    exporter.withHeat(heat);
+    java.io.ByteArrayOutputStream parallel = new java.io.ByteArrayOutputStream();
+    exporter.export(parallel, 3);
+    java.io.ByteArrayOutputStream serial = new java.io.ByteArrayOutputStream();
+    exporter.export(serial, 1);
+    t.checkExpect(parallel.toByteArray(), serial.toByteArray());
+
+    java.awt.image.BufferedImage image = javax.imageio.ImageIO.read(
+        new java.io.ByteArrayInputStream(parallel.toByteArray()));
+    t.checkExpect(image.getWidth(), 40 * 3 + 1);
+    t.checkExpect(image.getHeight(), 30 * 3 + 1);
+    t.checkExpect(image.getRGB(0, 0) & 0xFFFFFF, MazeImageExporter.WALL);
+    // the start and target are on the path
+    t.checkExpect(image.getRGB(1, 1) & 0xFFFFFF, MazeImageExporter.PATH);
+    t.checkExpect(image.getRGB(118, 88) & 0xFFFFFF, MazeImageExporter.PATH);
+    t.checkExpect(image.getRGB(120, 90) & 0xFFFFFF, MazeImageExporter.WALL);
+    int second = exporter.path.test(1) ? MazeImageExporter.PATH
+        : MazeImageExporter.HEAT_HIGH;
+    t.checkExpect(image.getRGB(4, 1) & 0xFFFFFF, second);
+
     initMW();
-    t.checkExpect(n1.path, false);
-    t.checkExpect(n4.path, false);
-    t.checkExpect(n6.path, false);
-    // sets the path field of nodes in the path to the
-    // end to true
-    mw.reconstruct(hash3, n9);
-    t.checkExpect(n1.path, true);
-    t.checkExpect(n4.path, false);
-    t.checkExpect(n6.path, true);
+    java.io.ByteArrayOutputStream world = new java.io.ByteArrayOutputStream();
+    MazeImageExporter.forWorld(mw, 2, pool).export(world, 3);
+    image = javax.imageio.ImageIO.read(new java.io.ByteArrayInputStream(world.toByteArray()));
+    t.checkExpect(image.getWidth(), MazeWorld.WORLDWIDTH * 2 + 1);
+    t.checkExpect(image.getRGB(1, 1) & 0xFFFFFF, MazeImageExporter.PATH);
 
-    init();
-    ArrayList<Node> path = MazeUtils.reconstruct(hash3, n9);
-    t.checkExpect(path.contains(n1), true);
-    t.checkExpect(path.contains(n7), false);
-    t.checkExpect(path.contains(n9), true);
+    // a world search shades each cell by the step that first took it
+    initMW();
+    mw.onKeyEvent("b");
+    while (mw.searchStep < 40 && mw.searchOnce()) {
+      mw.searchStep++;
+    }
+    MazeImageExporter searched = MazeImageExporter.forWorld(mw, 2, pool);
+    Node first = mw.nodeAt(mw.searchLog.events[0]);
+    t.checkExpect(searched.heat[searched.maze.cellAt(first.x, first.y)], 0);
+    int last = 39;
+    while (mw.searchLog.events[last] < 0) {
+      last--;
+    }
+    Node newest = mw.nodeAt(mw.searchLog.events[last]);
+    t.checkExpect(searched.heat[searched.maze.cellAt(newest.x, newest.y)], last);
+    t.checkExpect(searched.maxHeat, last);
+
+    pool.shutdown();
+
+    // an interrupted export gives up but leaves the thread interrupted; the
+    // only worker is held up so no strip is ready before the interrupt
+    java.util.concurrent.ExecutorService stuck =
+        java.util.concurrent.Executors.newSingleThreadExecutor();
+    java.util.concurrent.CountDownLatch hold = new java.util.concurrent.CountDownLatch(1);
+    stuck.submit(() -> {
+      hold.await();
+      return null;
+    });
+    Thread.currentThread().interrupt();
+    boolean failed = false;
+    try {
+      MazeImageExporter.forWorld(mw, 2, stuck).export(new java.io.ByteArrayOutputStream(), 1);
+    }
+    catch (java.io.IOException e) {
+      failed = e.getCause() instanceof InterruptedException;
+    }
+    t.checkExpect(failed, true);
+    t.checkExpect(Thread.interrupted(), true);
+    hold.countDown();
+    stuck.shutdown();
   }
 
-  // test the depthFirstSearch method
-  void testDepthFirstSearch(Tester t) {
-    init();
-    initMW();
-    // mw.path is the result of the depthFirstSearch() method
-    ArrayList<Node> tempPath = mw.path;
-    for (Node n : tempPath) {
-      t.checkExpect(n.hiddenVisited, true);
+  // test blending colors for the heatmap
+  void testBlend(Tester t) {
+    t.checkExpect(MazeImageExporter.blend(0x000000, 0xFF8040, 0), 0x000000);
+    t.checkExpect(MazeImageExporter.blend(0x000000, 0xFF8040, 1), 0xFF8040);
+    t.checkExpect(MazeImageExporter.blend(0x000000, 0xFF8040, 0.5), 0x804020);
+  }
+
+  // test measuring a small maze by hand
+  void testMazeAnalytics(Tester t) {
+    // 0 - 1 - 2
+    // |   |   |
+    // 3   4   5
+    // |
+    // 6 - 7 - 8
+    GraphMaze maze = new GraphMaze(MazeGraph.grid(3, 3));
+    int[][] passages = { { 0, 1 }, { 1, 2 }, { 0, 3 }, { 3, 6 }, { 6, 7 }, { 7, 8 }, { 1, 4 },
+        { 2, 5 } };
+    for (int[] p : passages) {
+      maze.openEdge(this.edgeBetween(maze.graph, p[0], p[1]));
+    }
+    MazeAnalytics stats = new MazeAnalytics(maze);
+    t.checkExpect(stats.reachable, 9);
+    t.checkExpect(stats.degreeCounts, new int[] { 0, 3, 5, 1, 0 });
+    t.checkExpect(stats.deadEnds, 3);
+    t.checkExpect(stats.junctions, 1);
+    t.checkExpect(stats.solutionLength, 5);
+    // from the junction at 1 through the start to the dead end at 8
+    t.checkExpect(stats.longestCorridor, 5);
+    // 1, 2, 4 and 5 are 1, 2, 2 and 3 steps off the solution
+    t.checkInexact(stats.averageDetour, 2.0, 0.0001);
+    t.checkInexact(stats.river, 4.0, 0.0001);
+
+    // with no way through there is no solution to measure against
+    MazeAnalytics walled = new MazeAnalytics(new GraphMaze(MazeGraph.grid(2, 2)));
+    t.checkExpect(walled.reachable, 1);
+    t.checkExpect(walled.solutionLength, 0);
+  }
+
+  // test keeping only the seeds that make hard enough mazes
+  void testFilterSeeds(Tester t) {
+    MazeGraph g = MazeGraph.grid(20, 15);
+    long[] hard = MazeAnalytics.filterSeeds(g, 100, 50, a -> a.solutionLength > 60);
+    long[] all = MazeAnalytics.filterSeeds(g, 100, 50, a -> true);
+    t.checkExpect(all.length, 50);
+    t.checkExpect(hard.length > 0 && hard.length < 50, true);
+    for (long seed : hard) {
+      GraphMaze maze = GraphMaze.kruskal(g, g.randomWeights(seed));
+      t.checkExpect(new MazeAnalytics(maze).solutionLength > 60, true);
+      t.checkExpect(new MazeAnalytics(maze).solutionLength,
+          GraphSearch.breadthFirst(maze, maze.start, maze.target).length);
     }
   }
 
-  // test the initializeEdges method
-  void testInitializeEdges(Tester t) {
-    init();
+  // test carving a maze in tiles and joining them
+  void testShardedMaze(Tester t) throws java.io.IOException, InterruptedException {
+    java.io.File dir = java.nio.file.Files.createTempDirectory("shards").toFile();
+    // tiles along the right and bottom are cut short
+    ShardedMaze sharded = ShardedMazeBuilder.generate(dir, 9, 50, 40, 16, 16, 0);
+    t.checkExpect(sharded.tilesX, 4);
+    t.checkExpect(sharded.tilesY, 3);
+    t.checkExpect(sharded.tile(3, 2).graph.width, 2);
+    t.checkExpect(sharded.tile(3, 2).graph.height, 8);
+    GraphMaze whole = sharded.assemble();
+    t.checkExpect(MazeValidator.problemWith(whole), null);
+    int[] expected = GraphSearch.breadthFirst(whole, whole.start, whole.target);
+    long[] solution = sharded.solve();
+    t.checkExpect(solution.length, expected.length);
+    for (int i = 0; i < expected.length; i++) {
+      t.checkExpect(solution[i], (long) expected[i]);
+    }
+    t.checkExpect(sharded.cache.size(), ShardedMaze.CACHED_TILES);
+
+    // a single tile is just a plain maze
+    ShardedMaze one = ShardedMazeBuilder.generate(dir, 9, 10, 10, 10, 10, 0);
+    t.checkExpect(one.solve().length,
+        GraphSearch.breadthFirst(one.assemble(), 0, 99).length);
+
+    // in a single column of tiles every link goes to the tile below
+    ShardedMaze column = ShardedMazeBuilder.generate(dir, 9, 10, 40, 16, 16, 0);
+    t.checkExpect(column.tilesX, 1);
+    t.checkExpect(column.tilesY, 3);
+    t.checkExpect(column.eastPassage, new int[] { -1, -1, -1 });
+    GraphMaze tall = column.assemble();
+    t.checkExpect(MazeValidator.problemWith(tall), null);
+    t.checkExpect(column.solve().length,
+        GraphSearch.breadthFirst(tall, tall.start, tall.target).length);
+  }
+
+  // test carving tiles in worker processes gives the same maze as in this one
+  void testShardedMazeProcesses(Tester t) throws java.io.IOException, InterruptedException {
+    java.io.File local = java.nio.file.Files.createTempDirectory("shards").toFile();
+    java.io.File workers = java.nio.file.Files.createTempDirectory("shards").toFile();
+    GraphMaze expected = ShardedMazeBuilder.generate(local, 4, 20, 20, 10, 10, 0).assemble();
+    GraphMaze actual = ShardedMazeBuilder.generate(workers, 4, 20, 20, 10, 10, 2).assemble();
+    t.checkExpect(actual.open, expected.open);
+
+    // an interrupt while waiting on the workers leaves none of them behind
+    java.io.File interrupted = java.nio.file.Files.createTempDirectory("shards").toFile();
+    Thread.currentThread().interrupt();
+    try {
+      ShardedMazeBuilder.runWorkers(interrupted, 4, 3000, 3000, 1000, 1000, 3);
+      t.checkExpect("interrupted", "finished");
+    }
+    catch (InterruptedException e) {
+      t.checkExpect(Thread.interrupted(), false);
+    }
+    // killed workers are gone well before a worker could have finished its tile
+    long deadline = System.currentTimeMillis() + 1000;
+    while (ProcessHandle.current().children().anyMatch(ProcessHandle::isAlive)
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    t.checkExpect(ProcessHandle.current().children().anyMatch(ProcessHandle::isAlive), false);
+  }
+
+  // test finding the visited set at any step from a search's log
+  void testSearchLog(Tester t) {
+    GraphMaze maze = GraphMaze.kruskal(MazeGraph.grid(300, 200), new Random(8));
+    SearchLog log = new SearchLog(maze.graph.cells, 500);
+    // a depth-first search that takes cells again after they are visited
+    ArrayDeque<Integer> stack = new ArrayDeque<Integer>();
+    long[] seen = new long[(maze.graph.cells + 63) >>> 6];
+    stack.push(maze.start);
+    while (!stack.isEmpty()) {
+      int c = stack.pop();
+      log.record(c);
+      if (!ParallelBfs.get(seen, c)) {
+        ParallelBfs.set(seen, c);
+        for (int s = maze.graph.offsets[c]; s < maze.graph.offsets[c + 1]; s++) {
+          if (maze.isOpen(maze.graph.slotEdges[s])) {
+            stack.push(maze.graph.targets[s]);
+          }
+        }
+      }
+    }
+    t.checkExpect(log.size > maze.graph.cells, true);
+    t.checkExpect(log.checkpoints.size(), log.size / 500 + 1);
+    t.checkExpect(log.visitedAt(log.size, null), seen);
+    t.checkExpect(log.visitedAt(0, null), new long[seen.length]);
+
+    // replaying from a checkpoint agrees with flipping cells one step at a time
+    long[] walked = new long[seen.length];
+    long[] buffer = new long[seen.length];
+    Random random = new Random(3);
+    int step = 0;
+    for (int i = 0; i < 20; i++) {
+      int next = random.nextInt(log.size + 1);
+      log.forEachChange(step, next, c -> walked[c >>> 6] ^= 1L << c);
+      step = next;
+      t.checkExpect(log.visitedAt(step, buffer) == buffer, true);
+      t.checkExpect(buffer, walked);
+    }
+    t.checkException(new IndexOutOfBoundsException("Step -1 of " + log.size), log, "visitedAt",
+        -1, buffer);
+    t.checkConstructorException(new IllegalArgumentException("Invalid checkpoint interval 0"),
+        "SearchLog", 10, 0);
+  }
+
+  // test rewinding and replaying the world's search
+  void testScrubSearch(Tester t) {
     initMW();
-    ArrayList<Edge> edges = mw.initializeEdges();
-    for (Edge e : edges) {
-      Node a = e.a;
-      Node b = e.b;
-      // the nodes are adjacent
-      t.checkExpect(Math.abs(a.x - b.x) == 1 ^ Math.abs(a.y - b.y) == 1, true);
-      // the weight is between 0 and 1m
-      t.checkRange(e.weight, 0, 1000000);
+    mw.onKeyEvent("b");
+    while (mw.state == 0) {
+      mw.onTick();
+    }
+    int steps = mw.searchLog.size;
+    t.checkExpect(mw.searchStep, steps);
+    t.checkExpect(mw.searchLog.solvedBy(steps), true);
+    t.checkExpect(MazeUtils.getStart(mw.nodes).path, true);
+    boolean[] visited = new boolean[mw.nodes.size() * mw.nodes.get(0).size()];
+    for (ArrayList<Node> l : mw.nodes) {
+      for (Node n : l) {
+        visited[mw.cellOf(n)] = n.visited;
+      }
+    }
+
+    // one step back hides the path and takes back the last cell
+    mw.onKeyEvent(",");
+    mw.onKeyEvent(",");
+    t.checkExpect(mw.playSpeed, -1);
+    mw.onTick();
+    t.checkExpect(mw.searchStep, steps - 1);
+    t.checkExpect(MazeUtils.getStart(mw.nodes).path, false);
+    t.checkExpect(mw.state, 0);
+    t.checkExpect(mw.nodeAt(mw.cellOf(mw.player.loc)), mw.player.loc);
+    // back to the start, then to the end again
+    mw.onKeyEvent("[");
+    t.checkExpect(mw.searchStep, 0);
+    for (ArrayList<Node> l : mw.nodes) {
+      for (Node n : l) {
+        t.checkExpect(n.visited, false);
+      }
+    }
+    mw.scrubTo(steps / 2);
+    mw.onKeyEvent("]");
+    mw.playSpeed = 0;
+    t.checkExpect(mw.searchStep, steps);
+    for (ArrayList<Node> l : mw.nodes) {
+      for (Node n : l) {
+        t.checkExpect(n.visited, visited[mw.cellOf(n)]);
+      }
     }
+    mw.onTick();
+    t.checkExpect(mw.state, 1);
+    // paused, ticks leave the scene as it was
+    mw.makeScene();
+    mw.onTick();
+    t.checkExpect(mw.dirty, false);
+    // playing forward from the end keeps searching, but this search is done
+    mw.playSpeed = 8;
+    t.checkExpect(mw.simulate(), false);
+    mw.onTick();
+    t.checkExpect(mw.dirty, false);
+
+    t.checkExpect(MazeWorld.faster(-1), 0);
+    t.checkExpect(MazeWorld.faster(0), 1);
+    t.checkExpect(MazeWorld.faster(4), 8);
+    t.checkExpect(MazeWorld.faster(-4), -2);
+    t.checkExpect(MazeWorld.slower(1), 0);
+    t.checkExpect(MazeWorld.slower(2), 1);
+    t.checkExpect(MazeWorld.slower(-2), -4);
   }
 
-  // test the initializeMaze method
-  void testInitializeMaze(Tester t) {
-    init();
+  // test carving, solving and drawing a maze kept off the heap
+  void testOffHeapMaze(Tester t) throws java.io.IOException {
+    OffHeapMaze maze = OffHeapMaze.generate(60, 45, 12);
+    GraphMaze copy = maze.toGraphMaze();
+    t.checkExpect(MazeValidator.problemWith(copy), null);
+    int[] expected = GraphSearch.breadthFirst(copy, copy.start, copy.target);
+    t.checkExpect(maze.solve(), (long) expected.length);
+    for (int c : expected) {
+      t.checkExpect(maze.onPath(c), true);
+    }
+    // solving again starts from a clean slate
+    t.checkExpect(maze.solve(), (long) expected.length);
+    t.checkExpect(OffHeapMaze.generate(60, 45, 12).toGraphMaze().open, copy.open);
+
+    // drawn in parallel strips, it is the same picture as its copy on the heap
+    java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(3);
+    MazeImageExporter offHeapImage = maze.exporter(3, pool);
+    offHeapImage.stripRows = 7;
+    java.io.ByteArrayOutputStream png = new java.io.ByteArrayOutputStream();
+    offHeapImage.export(png, 3);
+    MazeImageExporter heapImage = new MazeImageExporter(copy, expected, 3, pool);
+    heapImage.stripRows = 7;
+    java.io.ByteArrayOutputStream heapPng = new java.io.ByteArrayOutputStream();
+    heapImage.export(heapPng, 3);
+    pool.shutdown();
+    t.checkExpect(png.toByteArray(), heapPng.toByteArray());
+    java.awt.image.BufferedImage image = javax.imageio.ImageIO.read(
+        new java.io.ByteArrayInputStream(png.toByteArray()));
+    t.checkExpect(image.getWidth(), 60 * 3 + 1);
+    t.checkExpect(image.getRGB(1, 1) & 0xFFFFFF, MazeImageExporter.PATH);
+    t.checkExpect(image.getRGB(0, 5) & 0xFFFFFF, MazeImageExporter.WALL);
+
+    // its edges join the cells the grid's do, whatever the numbering
+    for (int e = 0; e < maze.edgeCount(); e++) {
+      int a = maze.edgeA(e);
+      int b = maze.edgeB(e);
+      t.checkExpect(maze.isPassage(b, a), maze.isOpen(e));
+      t.checkExpect(copy.isPassage(a, b), maze.isOpen(e));
+    }
+    t.checkExpect(maze.isPassage(59, 60), false);
+    t.checkExpect(maze.endSlot(0) - maze.firstSlot(0), 2);
+    t.checkExpect(maze.endSlot(61) - maze.firstSlot(61), 4);
+
+    // a maze with every wall up has no path
+    OffHeapMaze walled = new OffHeapMaze(3, 2);
+    t.checkExpect(walled.solve(), 0L);
+    walled.close();
+    maze.close();
+    t.checkException(new IllegalStateException("The maze has been closed"), maze, "solve");
+    t.checkException(new IllegalStateException("The maze has been closed"), maze, "isOpen", 0);
+    t.checkException(new IllegalStateException("The maze has been closed"), maze, "onPath", 0);
+    t.checkException(new IllegalStateException("The maze has been closed"), maze,
+        "isPassage", 0, 1);
+    t.checkConstructorException(new IllegalArgumentException("Invalid buffer size -1"),
+        "OffHeapBuffer", -1L);
+  }
+
+  // test reading and writing an off-heap array
+  void testOffHeapBuffer(Tester t) {
+    OffHeapBuffer buffer = new OffHeapBuffer(40);
+    buffer.putInt(3, -7);
+    buffer.putByte(39, (byte) 5);
+    t.checkExpect(buffer.getInt(3), -7);
+    t.checkExpect(buffer.getByte(12), java.nio.ByteOrder.nativeOrder() == java.nio.ByteOrder.LITTLE_ENDIAN
+        ? (byte) -7 : (byte) -1);
+    t.checkExpect(buffer.getByte(39), (byte) 5);
+    buffer.clear();
+    t.checkExpect(buffer.getInt(3), 0);
+    t.checkExpect(buffer.getByte(39), (byte) 0);
+    buffer.fill((byte) -1);
+    t.checkExpect(buffer.get(9), -1);
+    t.checkExpect(buffer.length(), 10);
+    buffer.close();
+    t.checkExpect(buffer.chunks, null);
+    // closing again does nothing
+    buffer.close();
+    t.checkExpect(buffer.chunks, null);
+  }
+
+  // test numbering cells along space filling curves
+  void testCellOrder(Tester t) {
+    int[][] sizes = { { 7, 5 }, { 8, 8 }, { 13, 1 }, { 1, 1 }, { 16, 4 }, { 2, 32 } };
+    for (int curve = CellOrder.ROWS; curve <= CellOrder.HILBERT; curve++) {
+      for (int[] size : sizes) {
+        CellOrder order = new CellOrder(size[0], size[1], curve);
+        // only padded sizes need tables
+        t.checkExpect(order.ids == null,
+            curve == CellOrder.ROWS || size[0] * size[1] != 35 && size[0] != 13);
+        long[] seen = new long[1];
+        for (int y = 0; y < size[1]; y++) {
+          for (int x = 0; x < size[0]; x++) {
+            int id = order.id(x, y);
+            t.checkExpect(order.x(id) == x && order.y(id) == y, true);
+            t.checkExpect(ParallelBfs.get(seen, id), false);
+            ParallelBfs.set(seen, id);
+          }
+        }
+      }
+    }
+    t.checkExpect(new CellOrder(7, 5, CellOrder.ROWS).id(3, 2), 17);
+    CellOrder morton = new CellOrder(4, 4, CellOrder.MORTON);
+    t.checkExpect(new int[] { morton.id(1, 0), morton.id(0, 1), morton.id(1, 1), morton.id(2, 0) },
+        new int[] { 1, 2, 3, 4 });
+    // a row of squares numbers one square after the other
+    CellOrder strip = new CellOrder(8, 4, CellOrder.MORTON);
+    t.checkExpect(new int[] { strip.id(3, 3), strip.id(4, 0), strip.id(7, 3) },
+        new int[] { 15, 16, 31 });
+    // each step along a Hilbert curve over a square moves to a neighboring cell
+    CellOrder hilbert = new CellOrder(16, 16, CellOrder.HILBERT);
+    t.checkExpect(hilbert.id(0, 0), 0);
+    for (int id = 1; id < 256; id++) {
+      t.checkExpect(Math.abs(hilbert.x(id) - hilbert.x(id - 1))
+          + Math.abs(hilbert.y(id) - hilbert.y(id - 1)), 1);
+    }
+    t.checkConstructorException(new IllegalArgumentException("Unknown curve 3"), "CellOrder", 2,
+        2, 3);
+  }
+
+  // test carving, solving, saving and drawing mazes whose cells are ordered along curves
+  void testOrderedGrid(Tester t) throws java.io.IOException {
+    MazeGraph rows = MazeGraph.grid(30, 20);
+    for (int curve = CellOrder.MORTON; curve <= CellOrder.HILBERT; curve++) {
+      MazeGraph g = MazeGraph.grid(30, 20, curve);
+      t.checkExpect(g.edgeCount(), rows.edgeCount());
+      t.checkExpect(g.local, true);
+      GraphMaze maze = GraphMaze.kruskal(g, new Random(curve));
+      t.checkExpect(maze.start, g.cellAt(0, 0));
+      t.checkExpect(maze.target, g.cellAt(29, 19));
+      t.checkExpect(MazeValidator.problemWith(maze), null);
+      int[] solution = GraphSearch.breadthFirst(maze, maze.start, maze.target);
+      t.checkExpect(DeadEndFiller.fromMaze(maze).solve().length, solution.length);
+
+      // saved and read back, the maze is numbered row by row but otherwise the same
+      java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+      MazeFile.write(maze, new java.io.DataOutputStream(bytes));
+      GraphMaze copy = MazeFile.read(new java.io.DataInputStream(
+          new java.io.ByteArrayInputStream(bytes.toByteArray())));
+      for (int e = 0; e < g.edgeCount(); e++) {
+        int a = g.edgeA[e];
+        int b = g.edgeB[e];
+        t.checkExpect(copy.isPassage(rows.cellAt(g.cellX(a), g.cellY(a)),
+            rows.cellAt(g.cellX(b), g.cellY(b))), maze.isOpen(e));
+      }
+      int[] copySolution = GraphSearch.breadthFirst(copy, copy.start, copy.target);
+      java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(1);
+      java.io.ByteArrayOutputStream image = new java.io.ByteArrayOutputStream();
+      new MazeImageExporter(maze, solution, 3, pool).export(image, 1);
+      java.io.ByteArrayOutputStream copyImage = new java.io.ByteArrayOutputStream();
+      new MazeImageExporter(copy, copySolution, 3, pool).export(copyImage, 1);
+      t.checkExpect(image.toByteArray(), copyImage.toByteArray());
+      pool.shutdown();
+    }
+  }
+
+  // test repairing distances as passages open and close
+  void testDynamicMaze(Tester t) {
+    MazeGraph g = MazeGraph.grid(40, 30);
+    GraphMaze maze = GraphMaze.braided(g, g.randomWeights(5L), 0.2, 5);
+    DynamicMaze live = new DynamicMaze(maze);
+    DynamicMaze fresh = new DynamicMaze(maze);
+    Random random = new Random(4);
+    long touched = 0;
+    for (int i = 0; i < 300; i++) {
+      int e = random.nextInt(g.edgeCount());
+      if (maze.isOpen(e)) {
+        live.close(e);
+      }
+      else {
+        live.open(e);
+      }
+      touched += live.touched;
+      fresh.rebuild();
+      t.checkExpect(live.dist, fresh.dist);
+      int[] path = live.path();
+      if (live.dist[maze.start] == DynamicMaze.UNREACHED) {
+        t.checkExpect(path.length, 0);
+      }
+      else {
+        // the path is walkable and costs what the distance says
+        int cost = 0;
+        for (int k = 1; k < path.length; k++) {
+          t.checkExpect(maze.isPassage(path[k], path[k - 1]), true);
+          cost += maze.cost(this.edgeBetween(g, path[k], path[k - 1]));
+        }
+        t.checkExpect(cost, live.dist[maze.start]);
+        t.checkExpect(path[0], maze.target);
+      }
+    }
+    // on average an edit looks at a small part of the maze
+    t.checkExpect(touched / 300 < g.cells / 10, true);
+    t.checkExpect(live.setPassage(0, 5, true), false);
+  }
+
+  // test doors opening and closing in the world
+  void testToggleDoor(Tester t) {
     initMW();
-    t.checkExpect(mw.edges.size(), mw.nodes.size() * mw.nodes.get(0).size() - 1);
+    ArrayList<Node> before = mw.path;
+    Edge onPath = null;
+    for (Edge e : mw.edges) {
+      if (before.contains(e.a) && before.contains(e.b)) {
+        onPath = e;
+      }
+    }
+    // closing a passage on the only path would cut the target off, so it stays open
+    t.checkExpect(mw.toggleDoor(onPath), false);
+    t.checkExpect(mw.path, before);
+    t.checkExpect(onPath.a.getNeighbors().contains(onPath.b), true);
+    t.checkExpect(mw.edges.contains(onPath), true);
+    // opening a wall never makes the path longer
+    int allEdges = mw.allEdges.size();
+    mw.makeScene();
+    t.checkExpect(mw.allEdges.size(), allEdges);
+    mw.onKeyEvent("h");
+    t.checkExpect(mw.path.size() <= before.size(), true);
+    // every edge knows whether it is a passage and where it is in the list
+    for (Edge e : mw.allEdges) {
+      t.checkExpect(e.passage, e.slot >= 0 && mw.edges.get(e.slot) == e);
+    }
+
+    // with the solution on show, it moves as walls open and close
+    initMW();
+    mw.onKeyEvent("b");
+    while (mw.state == 0) {
+      mw.onTick();
+    }
+    int solved = mw.path.size();
+    ArrayList<Edge> walls = new ArrayList<Edge>(mw.allEdges);
+    walls.removeAll(mw.edges);
+    Edge shortcut = null;
+    for (int i = 0; i < walls.size() && mw.path.size() == solved; i++) {
+      shortcut = walls.get(i);
+      t.checkExpect(mw.toggleDoor(shortcut), true);
+    }
+    t.checkExpect(mw.path.size() < solved, true);
+    for (ArrayList<Node> l : mw.nodes) {
+      for (Node n : l) {
+        t.checkExpect(n.path, mw.path.contains(n));
+      }
+    }
+    t.checkExpect(mw.searchLog.solution.length, mw.path.size());
+    // the wall that made it shorter is on the new path, and closing it again
+    // is allowed as the old path is still there
+    t.checkExpect(mw.toggleDoor(shortcut), true);
+    t.checkExpect(mw.path.size(), solved);
+    t.checkExpect(MazeUtils.getStart(mw.nodes).path, true);
+    t.checkExpect(shortcut.passage, false);
+    t.checkExpect(mw.edges.contains(shortcut), false);
+    for (int i = 0; i < mw.edges.size(); i++) {
+      t.checkExpect(mw.edges.get(i).slot, i);
+    }
   }
 
-  // test the onKey event method
-  void testOnKey(Tester t) {
-    init();
-    // input block at initial state
-    t.checkExpect(myWorld.newSearchBlock, false);
-    t.checkExpect(myWorld.tickSearch, "");
-    // start breadth-first search by pressing "b"
-    myWorld.onKeyEvent("b");
-    t.checkExpect(myWorld.newSearchBlock, true);
-    t.checkExpect(myWorld.tickSearch, "bfs");
-    // Resets the world to its initial state by pressing "r"
-    myWorld.onKeyEvent("r");
-    t.checkExpect(myWorld.newSearchBlock, true);
-    t.checkExpect(myWorld.tickSearch, "bfs");
-    // start depth-first search by pressing "d"
-    myWorld.onKeyEvent("d");
-    t.checkExpect(myWorld.newSearchBlock, true);
-    t.checkExpect(myWorld.tickSearch, "bfs");
+  // test hierarchical queries find paths as cheap as a flat search
+  void testHierarchicalMaze(Tester t) {
+    MazeGraph g = MazeGraph.grid(60, 45);
+    GraphMaze[] mazes = { GraphMaze.kruskal(g, new Random(2)),
+        GraphMaze.braided(g, g.randomWeights(3L), 0.3, 4) };
+    Random random = new Random(5);
+    for (GraphMaze maze : mazes) {
+      WeightedSearch flat = new WeightedSearch(maze);
+      for (int size : new int[] { 1, 8, 13, 100 }) {
+        HierarchicalMaze hpa = new HierarchicalMaze(maze, size);
+        for (int q = 0; q < 40; q++) {
+          int from = random.nextInt(g.cells);
+          int to = random.nextInt(g.cells);
+          int[] path = hpa.findPath(from, to);
+          flat.dijkstra(from, to);
+          t.checkExpect(path[0], to);
+          t.checkExpect(path[path.length - 1], from);
+          int cost = 0;
+          for (int k = 1; k < path.length; k++) {
+            t.checkExpect(maze.isPassage(path[k], path[k - 1]), true);
+            cost += maze.cost(this.edgeBetween(g, path[k], path[k - 1]));
+          }
+          t.checkExpect(cost, flat.dist[to]);
+        }
+      }
+    }
+    // one cluster for the whole maze has no abstract nodes at all
+    t.checkExpect(new HierarchicalMaze(mazes[0], 100).graph.cells, 0);
 
-    Node prev = myWorld.player.loc;
-    t.checkExpect(myWorld.player.loc.equals(prev), true);
+    // cells cut off from each other have no path
+    GraphMaze walled = new GraphMaze(MazeGraph.grid(6, 6));
+    walled.openPassage(0, 1);
+    walled.openPassage(1, 2);
+    walled.openPassage(2, 3);
+    HierarchicalMaze split = new HierarchicalMaze(walled, 2);
+    t.checkExpect(split.findPath(0, 3).length, 4);
+    t.checkExpect(split.findPath(0, 35).length, 0);
+    t.checkExpect(split.findPath(7, 7), new int[] { 7 });
+    t.checkConstructorException(new IllegalArgumentException("Invalid cluster size 0"),
+        "HierarchicalMaze", walled, 0);
+  }
 
-    myWorld.onKeyEvent("r");
+  // test an endless maze agrees with itself wherever it is rebuilt
+  void testInfiniteMaze(Tester t) {
+    InfiniteMaze maze = new InfiniteMaze(11, 6, 4);
+    InfiniteMaze other = new InfiniteMaze(11, 6, 100);
+    // the same passages, looked at from either side, however many tiles were dropped
+    for (int y = -20; y < 20; y++) {
+      for (int x = -20; x < 20; x++) {
+        t.checkExpect(maze.canMove(x, y, 1, 0), other.canMove(x, y, 1, 0));
+        t.checkExpect(maze.canMove(x, y, 0, 1), maze.canMove(x, y + 1, 0, -1));
+      }
+    }
+    t.checkExpect(maze.tiles.size(), 4);
+    t.checkExpect(maze.evicted, maze.built - 4);
+    t.checkExpect(maze.canMove(0, 0, 1, 1), false);
+    // tiles carved in the maze's own buffers are the ones the pool would make
+    t.checkExpect(maze.tile(-3, 2).open,
+        GraphMaze.kruskal(maze.grid, maze.grid.randomWeights(maze.mix(-3, 2, InfiniteMaze.CARVE)))
+            .open);
 
-    myWorld.PATHVIS = true;
-    t.checkExpect(myWorld.PATHVIS, true);
-    // EFFECT toggles path visibility
-    myWorld.onKeyEvent("t");
-    t.checkExpect(myWorld.PATHVIS, false);
+    // every cell of a block of tiles can reach every other
+    int side = 18;
+    long[] seen = new long[(side * side + 63) >>> 6];
+    int[] queue = new int[side * side];
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = 0;
+    ParallelBfs.set(seen, 0);
+    int[][] moves = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+    while (head < tail) {
+      int c = queue[head++];
+      int x = c % side - 6;
+      int y = c / side - 6;
+      for (int[] m : moves) {
+        int n = c + m[1] * side + m[0];
+        if (c % side + m[0] >= 0 && c % side + m[0] < side && n >= 0 && n < side * side
+            && !ParallelBfs.get(seen, n) && maze.canMove(x, y, m[0], m[1])) {
+          ParallelBfs.set(seen, n);
+          queue[tail++] = n;
+        }
+      }
+    }
+    t.checkExpect(tail, side * side);
+    t.checkConstructorException(new IllegalArgumentException("Invalid tile size 0 or cap 3"),
+        "InfiniteMaze", 1L, 0, 3);
+  }
 
-    // Tests for player movements.
-    myWorld.player = p1;
-    MazeUtils.connect(e12);
-    MazeUtils.connect(e14);
-    MazeUtils.connect(e25);
-    MazeUtils.connect(e45);
-    // moves the player down a node
-    myWorld.onKeyEvent("down");
-    t.checkExpect(myWorld.player.loc, n4);
+  // test wandering far through an endless world keeps only a few tiles
+  void testEndlessWorld(Tester t) {
+    EndlessWorld world = new EndlessWorld(3);
+    long[] home = world.maze.tile(0, 0).open.clone();
+    String[] keys = { "up", "down", "left", "right" };
+    for (int i = 1; i <= 50; i++) {
+      // jump ahead, then step wherever the maze allows
+      world.x = i * 37;
+      world.y = -i * 23;
+      for (String key : keys) {
+        world.onKeyEvent(key);
+      }
+      t.checkExpect(world.maze.tiles.size() <= world.maze.maxTiles, true);
+    }
+    t.checkExpect(world.maze.evicted > 0, true);
+    t.checkExpect(world.maze.tiles.containsKey(InfiniteMaze.tileKey(0, 0)), false);
+    // coming back rebuilds the same tile
+    t.checkExpect(world.maze.tile(0, 0).open, home);
+    t.checkExpect(world.makeScene() != null, true);
 
-    // moves the player right a node
-    myWorld.onKeyEvent("right");
-    t.checkExpect(myWorld.player.loc, n5);
+    // pacing to and fro across a tile corner carves nothing new
+    world.x = 5 * EndlessWorld.TILE;
+    world.y = 5 * EndlessWorld.TILE;
+    world.prepare();
+    world.makeScene();
+    int built = world.maze.built;
+    for (int i = 0; i < 20; i++) {
+      world.x += i % 2 == 0 ? -1 : 1;
+      world.y += i % 4 < 2 ? -1 : 1;
+      world.prepare();
+      world.makeScene();
+    }
+    t.checkExpect(world.maze.built, built);
+    t.checkExpect(world.maze.maxTiles, 40);
 
-    // moves the player up a node
-    myWorld.onKeyEvent("up");
-    t.checkExpect(myWorld.player.loc, n2);
+    // walking into a wall does nothing
+    int x = world.x;
+    int y = world.y;
+    for (String key : keys) {
+      int dx = key.equals("left") ? -1 : key.equals("right") ? 1 : 0;
+      int dy = key.equals("up") ? -1 : key.equals("down") ? 1 : 0;
+      if (!world.maze.canMove(x, y, dx, dy)) {
+        world.onKeyEvent(key);
+        t.checkExpect(world.x == x && world.y == y, true);
+      }
+    }
+  }
 
-    // moves the player left a node
-    myWorld.onKeyEvent("left");
-    t.checkExpect(myWorld.player.loc, n1);
+  // test generating and solving with a reused workspace
+  void testMazeWorkspace(Tester t) {
+    MazeWorkspace work = new MazeWorkspace();
+    GraphMaze first = work.generate(30, 20, 7);
+    long[] firstOpen = first.open.clone();
+    t.checkExpect(MazeValidator.problemWith(first), null);
+    t.checkExpect(firstOpen, GraphMaze.kruskal(work.graph,
+        Arrays.copyOf(work.weights, work.graph.edgeCount())).open);
+    // the same maze as made from scratch with the same seed
+    MazeGraph fresh = MazeGraph.grid(30, 20);
+    t.checkExpect(firstOpen, GraphMaze.kruskal(fresh, fresh.randomWeights(7)).open);
+    int length = work.solve();
+    t.checkExpect(Arrays.copyOf(work.path, length),
+        GraphSearch.breadthFirst(first, first.start, first.target));
 
-    myWorld.bias = 1;
-    // cycle through the direction biases
-    myWorld.onKeyEvent("w");
-    t.checkExpect(myWorld.bias, 2);
+    // the same maze and buffers come back for the next seed of the same size
+    int regrown = work.regrown;
+    t.checkExpect(work.generate(30, 20, 8) == first, true);
+    t.checkExpect(work.solve() > 0, true);
+    t.checkExpect(work.generate(30, 20, 7).open, firstOpen);
+    t.checkExpect(work.regrown, regrown);
+    // a smaller maze keeps the bigger buffers, a bigger one grows them
+    GraphMaze small = work.generate(10, 5, 1);
+    t.checkExpect(small == first, true);
+    t.checkExpect(MazeValidator.problemWith(small), null);
+    t.checkExpect(small.target, 49);
+    MazeGraph smallGrid = MazeGraph.grid(10, 5);
+    GraphMaze smallFresh = GraphMaze.kruskal(smallGrid, smallGrid.randomWeights(1));
+    for (int e = 0; e < smallGrid.edgeCount(); e++) {
+      t.checkExpect(small.isOpen(e), smallFresh.isOpen(e));
+    }
+    t.checkExpect(Arrays.copyOf(work.path, work.solve()),
+        GraphSearch.breadthFirst(smallFresh, 0, 49));
+    t.checkExpect(work.regrown, regrown);
+    t.checkExpect(MazeValidator.problemWith(work.generate(40, 40, 1)), null);
+    t.checkExpect(work.solve(), GraphSearch.breadthFirst(work.maze, 0, 1599).length);
+    t.checkExpect(work.regrown, regrown + 4);
+
+    // nothing is allocated per maze once the workspace is warm
+    java.lang.management.ThreadMXBean threads =
+        java.lang.management.ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+      long id = Thread.currentThread().getId();
+      for (int i = 0; i < 50; i++) {
+        work.generate(40, 40, i);
+        work.solve();
+      }
+      long before = counter.getThreadAllocatedBytes(id);
+      for (int i = 0; i < 50; i++) {
+        work.generate(40, 40, i);
+        work.solve();
+      }
+      t.checkExpect(counter.getThreadAllocatedBytes(id) - before, 0L);
+    }
+  }
+
+  // test running the world with simulation steps apart from frames
+  void testPlay(Tester t) {
+    MazeWorld world = new MazeWorld();
+    world.play(100, 1.0 / 30);
+    t.checkExpect(world.clock.stepNanos, 10000000L);
+    t.checkExpect(world.clock.maxSteps, 16);
   }
 
   void testBigBang(Tester t) {